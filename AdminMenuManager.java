@@ -1,3 +1,8 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class AdminMenuManager {
@@ -22,7 +27,9 @@ public class AdminMenuManager {
             UserInterface.printMenuOption(3, "View All Jets");
             UserInterface.printMenuOption(4, "Add New Jet");
             UserInterface.printMenuOption(5, "Delete a Jet");
-            UserInterface.printMenuOption(6, "Return to Main Menu");
+            UserInterface.printMenuOption(6, "Revenue and Utilization Reports");
+            UserInterface.printMenuOption(7, "Assign Jets to Trip Requests");
+            UserInterface.printMenuOption(8, "Return to Main Menu");
             UserInterface.printPrompt("Enter your choice: ");
 
             int choice = InputValidator.getIntInput();
@@ -44,6 +51,12 @@ public class AdminMenuManager {
                     deleteJetMenu();
                     break;
                 case 6:
+                    reportsMenu();
+                    break;
+                case 7:
+                    assignTripRequestsMenu();
+                    break;
+                case 8:
                     admin_loop = false;
                     break;
                 default:
@@ -63,40 +76,43 @@ public class AdminMenuManager {
         newJet.setModel(model);
 
         // Get and validate jet type
+        // The options come from the inventory's type dictionary, plus one to register a new type
+        List<String> jetTypes = jetInventory.getJetTypes();
         String type;
         do {
             UserInterface.printSubHeader("Available jet types:");
-            UserInterface.printMenuOption(1, "Ultra Long Range");
-            UserInterface.printMenuOption(2, "Large Jet");
-            UserInterface.printMenuOption(3, "Super Mid-Size");
-            UserInterface.printMenuOption(4, "Mid-Size");
-            UserInterface.printMenuOption(5, "Light Jet");
+            for (int i = 0; i < jetTypes.size(); i++) {
+                UserInterface.printMenuOption(i + 1, jetTypes.get(i));
+            }
+            UserInterface.printMenuOption(jetTypes.size() + 1, "Other (enter a new type)");
             UserInterface.printPrompt("Select jet type (enter the number): ");
 
             int typeChoice = InputValidator.getIntInput();
-            switch (typeChoice) {
-                case 1:
-                    type = "Ultra Long Range";
-                    break;
-                case 2:
-                    type = "Large Jet";
-                    break;
-                case 3:
-                    type = "Super Mid-Size";
-                    break;
-                case 4:
-                    type = "Mid-Size";
-                    break;
-                case 5:
-                    type = "Light Jet";
-                    break;
-                default:
-                    UserInterface.printError("Invalid type. Please try again.");
-                    type = null;
+            if (typeChoice >= 1 && typeChoice <= jetTypes.size()) {
+                type = jetTypes.get(typeChoice - 1);
+            } else if (typeChoice == jetTypes.size() + 1) {
+                type = InputValidator.doNotAcceptInt("Enter the new jet type: ", false);
+            } else {
+                UserInterface.printError("Invalid type. Please try again.");
+                type = null;
             }
         } while (type == null);
         newJet.setType(type);
 
+        // A new type needs its cruise speed, so flight times can be worked out for it
+        if (jetInventory.getCruiseKnots(type) <= 0) {
+            double cruiseKnots;
+            do {
+                UserInterface.printPrompt("Enter the typical cruise speed of a " + type + " in knots (250 - 600): ");
+                cruiseKnots = InputValidator.getDoubleInput();
+                if (cruiseKnots < 250 || cruiseKnots > 600) {
+                    UserInterface.printError("Cruise speed must be between 250 and 600 knots. Please try again.");
+                    cruiseKnots = 0;
+                }
+            } while (cruiseKnots == 0);
+            jetInventory.setCruiseKnots(type, cruiseKnots);
+        }
+
         // Get and validate seat capacity
         int seatCapacity;
         do {
@@ -122,10 +138,13 @@ public class AdminMenuManager {
         newJet.setHourlyRate(hourlyRate);
 
         // Add the jet to the inventory
-        jetInventory.addJet(newJet);
-
-        UserInterface.printSuccess("\nNew Jet Added Successfully!");
-        System.out.println(newJet);
+        try {
+            jetInventory.addNewJet(newJet);
+            UserInterface.printSuccess("\nNew Jet Added Successfully!");
+            System.out.println(newJet);
+        } catch (IOException e) {
+            UserInterface.printError("The jet could not be saved, so it was not added: " + e.getMessage());
+        }
 
         // Optional: Ask if user wants to add another jet
         boolean addAnother = InputValidator.getYesNoInput("Would you like to add another jet?");
@@ -134,26 +153,193 @@ public class AdminMenuManager {
         }
     }
 
+    // Takes a batch of trip requests from a broker and lets FleetAssignmentOptimizer pick the jets
+    // for all of them at once, so the fleet is shared out better than booking them one by one
+    private void assignTripRequestsMenu() {
+        UserInterface.printSubHeader("==== Admin - Assign Jets to Trip Requests ====");
+
+        List<TripRequest> trips = new ArrayList<>();
+        do {
+            TripRequest trip = askTripRequest();
+            if (trip != null) {
+                trips.add(trip);
+            }
+        } while (InputValidator.getYesNoInput("Would you like to add another trip request?"));
+        if (trips.isEmpty()) {
+            UserInterface.printInfo("No trip requests to assign.");
+            return;
+        }
+
+        int objective = -1;
+        do {
+            UserInterface.printMenuOption(1, "Cheapest in total");
+            UserInterface.printMenuOption(2, "Fewest empty seats");
+            UserInterface.printPrompt("How should the jets be picked? ");
+            int objectiveChoice = InputValidator.getIntInput();
+            if (objectiveChoice == 1) {
+                objective = FleetAssignmentOptimizer.MINIMIZE_COST;
+            } else if (objectiveChoice == 2) {
+                objective = FleetAssignmentOptimizer.MINIMIZE_EMPTY_SEATS;
+            } else {
+                UserInterface.printError("Invalid choice. Please enter 1 or 2.");
+            }
+        } while (objective < 0);
+
+        FleetAssignmentOptimizer optimizer = new FleetAssignmentOptimizer(jetInventory, bookingManager);
+        List<BookingResult> results = optimizer.assignAndBook(trips, objective, LocalDate.now().toString());
+
+        UserInterface.printSubHeader("----- Assignment Results -----");
+        int bookedCount = 0;
+        for (int i = 0; i < results.size(); i++) {
+            TripRequest trip = trips.get(i);
+            BookingResult result = results.get(i);
+            String label = String.format("%d. %s %s -> %s on %s", i + 1, trip.getUser().getUsername(),
+                    trip.getDeparture(), trip.getDestination(), trip.getFlightDate());
+            if (result.isSuccessful()) {
+                Booking booking = result.getBooking();
+                UserInterface.printSuccess(label + ": " + booking.getJet().getModel()
+                        + ", Confirmation No.: " + booking.getConfirmationNumber());
+                bookedCount++;
+            } else {
+                UserInterface.printError(label + ": " + result.getFailureReason());
+            }
+        }
+        UserInterface.printInfo(bookedCount + " of " + results.size() + " trip requests booked.");
+    }
+
+    // Helper method that asks for one trip request, or returns null if the customer does not exist
+    private TripRequest askTripRequest() {
+        String username = InputValidator.getStringInput("Enter the customer's username: ", false);
+        User user = userManager.findUserByUsername(username);
+        if (user == null) {
+            UserInterface.printError("No user with that username.");
+            return null;
+        }
+
+        String departure = InputValidator.doNotAcceptInt("Enter departure airport code: ", false).toUpperCase();
+        String destination;
+        do {
+            destination = InputValidator.doNotAcceptInt("Enter destination airport code: ", false).toUpperCase();
+        } while (!InputValidator.isValidRoute(departure, destination));
+
+        String tripType = InputValidator.getYesNoInput("Is it a round trip?") ? "Round-trip" : "One-way";
+        String flightDate = InputValidator.getDateInput("Enter flight date (YYYY-MM-DD): ");
+
+        int flightDuration;
+        do {
+            UserInterface.printPrompt("Enter flight duration in hours (one way): ");
+            flightDuration = InputValidator.getIntInput();
+            if (flightDuration <= 0) {
+                UserInterface.printError("Flight duration must be greater than 0. Please try again.");
+            }
+        } while (flightDuration <= 0);
+
+        int passengers;
+        do {
+            UserInterface.printPrompt("Enter number of passengers: ");
+            passengers = InputValidator.getIntInput();
+            if (passengers <= 0) {
+                UserInterface.printError("There must be at least one passenger. Please try again.");
+            }
+        } while (passengers <= 0);
+
+        double budget;
+        do {
+            UserInterface.printPrompt("Enter the customer's budget for the trip: $");
+            budget = InputValidator.getDoubleInput();
+            if (budget <= 0) {
+                UserInterface.printError("Budget must be greater than 0. Please try again.");
+            }
+        } while (budget <= 0);
+
+        return new TripRequest(user, departure, destination, tripType, flightDate, flightDuration, passengers, budget);
+    }
+
+    // Shows the revenue and utilization totals that BookingManager keeps up to date
+    private void reportsMenu() {
+        BookingStatistics statistics = bookingManager.getStatistics();
+        boolean reports_loop = true;
+        while (reports_loop) {
+            UserInterface.printSubHeader("\n===== Admin - Reports =====");
+            UserInterface.printMenuOption(1, "Revenue by Jet Type");
+            UserInterface.printMenuOption(2, "Revenue by Month");
+            UserInterface.printMenuOption(3, "Revenue by Route");
+            UserInterface.printMenuOption(4, "Flight Hours per Jet");
+            UserInterface.printMenuOption(5, "Return to Admin Dashboard");
+            UserInterface.printPrompt("Enter your choice: ");
+
+            int choice = InputValidator.getIntInput();
+
+            switch (choice) {
+                case 1:
+                    printRevenueReport("Revenue by Jet Type", statistics.getRevenueByJetType());
+                    break;
+                case 2:
+                    printRevenueReport("Revenue by Month", statistics.getRevenueByMonth());
+                    break;
+                case 3:
+                    printRevenueReport("Revenue by Route", statistics.getRevenueByRoute());
+                    break;
+                case 4:
+                    printFlightHoursReport(statistics.getFlightHoursByJet());
+                    break;
+                case 5:
+                    reports_loop = false;
+                    break;
+                default:
+                    UserInterface.printError("Invalid choice. Please try again.");
+            }
+        }
+    }
+
+    private void printRevenueReport(String title, Map<?, Double> revenue) {
+        UserInterface.printSubHeader("----- " + title + " -----");
+        if (revenue.isEmpty()) {
+            UserInterface.printInfo("No bookings yet.");
+        }
+        double total = 0;
+        for (Map.Entry<?, Double> entry : revenue.entrySet()) {
+            UserInterface.printInfo(String.format("%-40s $%,.2f", entry.getKey(), entry.getValue()));
+            total += entry.getValue();
+        }
+        UserInterface.printInfo(String.format("%-40s $%,.2f", "Total", total));
+    }
+
+    private void printFlightHoursReport(Map<Integer, Double> hoursByJet) {
+        UserInterface.printSubHeader("----- Flight Hours per Jet -----");
+        if (hoursByJet.isEmpty()) {
+            UserInterface.printInfo("No bookings yet.");
+        }
+        for (Map.Entry<Integer, Double> entry : hoursByJet.entrySet()) {
+            Jet jet = jetInventory.getJetById(entry.getKey());
+            String model = jet != null ? jet.getModel() : "(removed jet)";
+            UserInterface.printInfo(String.format("%-5d %-30s %8.1f hours", entry.getKey(), model, entry.getValue()));
+        }
+    }
+
     public void deleteJetMenu() {
         UserInterface.printHeader("==== Admin - Delete a Jet ====");
 
         jetInventory.displayAllJets();
 
-        UserInterface.printPrompt("Enter the number of the jet to delete: ");
-        int jetNumber = InputValidator.getIntInput();
+        UserInterface.printPrompt("Enter the ID of the jet to delete: ");
+        int jetId = InputValidator.getIntInput();
 
-        if (jetNumber < 1 || jetNumber > jetInventory.getJetCount()) {
-            UserInterface.printError("Invalid jet number. Please try again.");
+        if (jetInventory.getJetById(jetId) == null) {
+            UserInterface.printError("Invalid jet ID. Please try again.");
             return;
         }
 
-        Jet jetToDelete = jetInventory.getJetByIndex(jetNumber - 1);
-        boolean jetRemoved = jetInventory.removeJet(jetToDelete);
+        try {
+            Jet jetToDelete = jetInventory.deleteJet(jetId);
 
-        if (jetRemoved) {
-            UserInterface.printSuccess("Jet model '" + jetToDelete.getModel() + "' removed successfully.");
-        } else {
-            UserInterface.printError("Failed to remove the jet. Please try again.");
+            if (jetToDelete != null) {
+                UserInterface.printSuccess("Jet model '" + jetToDelete.getModel() + "' removed successfully.");
+            } else {
+                UserInterface.printError("Failed to remove the jet. Please try again.");
+            }
+        } catch (IOException e) {
+            UserInterface.printError("The deletion could not be saved, so the jet was kept: " + e.getMessage());
         }
 
         boolean continueRemoval = InputValidator.getYesNoInput("Do you want to delete another jet?");
@@ -0,0 +1,175 @@
+import java.util.*;
+
+// This class holds a built-in table of airports (IATA code and coordinates), so flight
+// distances and durations can be worked out offline instead of being typed in by the user.
+// The table is loaded once into plain arrays, and every distance and flight time that has
+// been worked out is remembered, so quoting the same route again costs a single map lookup.
+class AirportDatabase {
+    // IATA code, airport name, latitude, longitude
+    private static final String[][] AIRPORTS = {
+            {"MNL", "Manila Ninoy Aquino", "14.5086", "121.0194"},
+            {"CEB", "Mactan-Cebu", "10.3075", "123.9794"},
+            {"DVO", "Davao Francisco Bangoy", "7.1255", "125.6458"},
+            {"CRK", "Clark", "15.1860", "120.5603"},
+            {"MPH", "Caticlan (Boracay)", "11.9245", "121.9540"},
+            {"PPS", "Puerto Princesa", "9.7421", "118.7590"},
+            {"HKG", "Hong Kong", "22.3080", "113.9185"},
+            {"TPE", "Taipei Taoyuan", "25.0797", "121.2342"},
+            {"SIN", "Singapore Changi", "1.3644", "103.9915"},
+            {"KUL", "Kuala Lumpur", "2.7456", "101.7099"},
+            {"BKK", "Bangkok Suvarnabhumi", "13.6900", "100.7501"},
+            {"CGK", "Jakarta Soekarno-Hatta", "-6.1256", "106.6559"},
+            {"DPS", "Bali Ngurah Rai", "-8.7482", "115.1672"},
+            {"SGN", "Ho Chi Minh City", "10.8188", "106.6520"},
+            {"HND", "Tokyo Haneda", "35.5494", "139.7798"},
+            {"NRT", "Tokyo Narita", "35.7720", "140.3929"},
+            {"KIX", "Osaka Kansai", "34.4347", "135.2440"},
+            {"ICN", "Seoul Incheon", "37.4602", "126.4407"},
+            {"PEK", "Beijing Capital", "40.0799", "116.6031"},
+            {"PVG", "Shanghai Pudong", "31.1443", "121.8083"},
+            {"DEL", "Delhi", "28.5562", "77.1000"},
+            {"BOM", "Mumbai", "19.0896", "72.8656"},
+            {"DXB", "Dubai", "25.2532", "55.3657"},
+            {"DOH", "Doha Hamad", "25.2731", "51.6081"},
+            {"SYD", "Sydney", "-33.9399", "151.1753"},
+            {"MEL", "Melbourne", "-37.6690", "144.8410"},
+            {"AKL", "Auckland", "-37.0082", "174.7850"},
+            {"LHR", "London Heathrow", "51.4700", "-0.4543"},
+            {"LTN", "London Luton", "51.8747", "-0.3683"},
+            {"CDG", "Paris Charles de Gaulle", "49.0097", "2.5479"},
+            {"LBG", "Paris Le Bourget", "48.9694", "2.4414"},
+            {"NCE", "Nice Cote d'Azur", "43.6584", "7.2159"},
+            {"GVA", "Geneva", "46.2381", "6.1090"},
+            {"ZRH", "Zurich", "47.4582", "8.5555"},
+            {"FRA", "Frankfurt", "50.0379", "8.5622"},
+            {"AMS", "Amsterdam Schiphol", "52.3105", "4.7683"},
+            {"MAD", "Madrid Barajas", "40.4983", "-3.5676"},
+            {"FCO", "Rome Fiumicino", "41.8003", "12.2389"},
+            {"IST", "Istanbul", "41.2753", "28.7519"},
+            {"JFK", "New York JFK", "40.6413", "-73.7781"},
+            {"TEB", "Teterboro", "40.8501", "-74.0608"},
+            {"LAX", "Los Angeles", "33.9416", "-118.4085"},
+            {"VNY", "Van Nuys", "34.2098", "-118.4897"},
+            {"SFO", "San Francisco", "37.6213", "-122.3790"},
+            {"LAS", "Las Vegas", "36.0840", "-115.1537"},
+            {"ORD", "Chicago O'Hare", "41.9742", "-87.9073"},
+            {"MIA", "Miami", "25.7959", "-80.2870"},
+            {"ASE", "Aspen", "39.2232", "-106.8688"},
+            {"YYZ", "Toronto Pearson", "43.6777", "-79.6248"},
+            {"MEX", "Mexico City", "19.4361", "-99.0719"},
+            {"GRU", "Sao Paulo Guarulhos", "-23.4356", "-46.4731"},
+            {"JNB", "Johannesburg", "-26.1367", "28.2411"},
+    };
+
+    private static final double EARTH_RADIUS_NM = 3440.065;   // Mean earth radius in nautical miles
+    private static final double TAXI_AND_CLIMB_HOURS = 0.5;   // Time added to every flight on the ground and climbing
+
+    private static AirportDatabase instance;  // The single shared table, created on first use
+
+    private String[] codes;                   // Airport number -> IATA code
+    private String[] names;                   // Airport number -> airport name
+    private double[] latitudes;               // Airport number -> latitude in radians
+    private double[] longitudes;              // Airport number -> longitude in radians
+    private Map<String, Integer> numbersByCode;
+
+    private Map<Integer, Double> distanceCache;                  // Airport pair -> distance in nautical miles
+    private Map<Double, Map<Integer, Integer>> blockHoursCache;  // Cruise speed -> (airport pair -> hours)
+
+    // This returns the shared airport table, loading it the first time
+    public static synchronized AirportDatabase getInstance() {
+        if (instance == null) {
+            instance = new AirportDatabase();
+        }
+        return instance;
+    }
+
+    // This is a constructor - it loads the built-in table into arrays
+    private AirportDatabase() {
+        int count = AIRPORTS.length;
+        this.codes = new String[count];
+        this.names = new String[count];
+        this.latitudes = new double[count];
+        this.longitudes = new double[count];
+        this.numbersByCode = new HashMap<>();
+        this.distanceCache = new HashMap<>();
+        this.blockHoursCache = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = AIRPORTS[i][0];
+            names[i] = AIRPORTS[i][1];
+            latitudes[i] = Math.toRadians(Double.parseDouble(AIRPORTS[i][2]));
+            longitudes[i] = Math.toRadians(Double.parseDouble(AIRPORTS[i][3]));
+            numbersByCode.put(codes[i], i);
+        }
+    }
+
+    // This checks whether an IATA code is in the table
+    public boolean isKnownAirport(String code) {
+        return airportNumber(code) >= 0;
+    }
+
+    // This returns the name of the airport with the given IATA code, or null if it is unknown
+    public String getAirportName(String code) {
+        int number = airportNumber(code);
+        return number < 0 ? null : names[number];
+    }
+
+    // This returns the great-circle distance between two airports in nautical miles,
+    // or -1 if either code is unknown
+    public synchronized double getDistanceNm(String origin, String destination) {
+        int from = airportNumber(origin);
+        int to = airportNumber(destination);
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+
+        // The distance is the same in both directions, so both share one cache entry
+        int pairKey = Math.min(from, to) * codes.length + Math.max(from, to);
+        Double distance = distanceCache.get(pairKey);
+        if (distance == null) {
+            distance = haversineNm(from, to);
+            distanceCache.put(pairKey, distance);
+        }
+        return distance;
+    }
+
+    // This estimates the block time (gate to gate) of one leg at the given cruise speed (the jet type's,
+    // see JetInventory.getCruiseKnots), rounded up to whole hours. It returns -1 if either code is unknown,
+    // both are the same airport, or the speed is not known, so the caller has to ask for the duration.
+    public synchronized int estimateBlockHours(String origin, String destination, double cruiseKnots) {
+        int from = airportNumber(origin);
+        int to = airportNumber(destination);
+        if (from < 0 || to < 0 || from == to || cruiseKnots <= 0) {
+            return -1;
+        }
+
+        Map<Integer, Integer> routeHours = blockHoursCache.computeIfAbsent(cruiseKnots, key -> new HashMap<>());
+        int pairKey = from * codes.length + to;
+        Integer hours = routeHours.get(pairKey);
+        if (hours == null) {
+            double blockHours = getDistanceNm(origin, destination) / cruiseKnots + TAXI_AND_CLIMB_HOURS;
+            hours = Math.max(1, (int) Math.ceil(blockHours));
+            routeHours.put(pairKey, hours);
+        }
+        return hours;
+    }
+
+    // Helper method that turns an IATA code into its airport number, or -1 if it is unknown
+    private int airportNumber(String code) {
+        if (code == null) {
+            return -1;
+        }
+        Integer number = numbersByCode.get(code.trim().toUpperCase(Locale.ROOT));
+        return number == null ? -1 : number;
+    }
+
+    // Helper method that works out the great-circle distance with the haversine formula
+    private double haversineNm(int from, int to) {
+        double deltaLatitude = latitudes[to] - latitudes[from];
+        double deltaLongitude = longitudes[to] - longitudes[from];
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2)
+                + Math.cos(latitudes[from]) * Math.cos(latitudes[to])
+                * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+        return 2 * EARTH_RADIUS_NM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,48 @@
+import java.time.LocalDateTime;
+import java.util.*;
+
+// This class keeps track of the time windows in which one jet is already booked.
+// A jet can take any number of bookings, as long as their windows do not overlap.
+// Every method locks this calendar only, so checking and booking a window is one atomic step
+// for this jet, without holding up bookings of any other jet.
+class AvailabilityCalendar {
+    // Booked windows sorted by start time (start -> end). A window covers [start, end),
+    // so one flight may start at the exact moment the previous one ends.
+    // Because the windows never overlap, sorting them by start is enough to answer
+    // an overlap question by looking at a single neighbour.
+    private TreeMap<LocalDateTime, LocalDateTime> bookedWindows;
+
+    // This is a constructor - it creates an empty calendar
+    public AvailabilityCalendar() {
+        this.bookedWindows = new TreeMap<>();
+    }
+
+    // This checks whether the window [start, end) is free, in O(log n)
+    public synchronized boolean isFree(LocalDateTime start, LocalDateTime end) {
+        // The only window that can overlap is the last one starting before our end time
+        Map.Entry<LocalDateTime, LocalDateTime> previous = bookedWindows.lowerEntry(end);
+        return previous == null || !previous.getValue().isAfter(start);
+    }
+
+    // This books the window [start, end) if it is free and reports whether it worked
+    public synchronized boolean reserve(LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("A booked window must end after it starts");
+        }
+        if (!isFree(start, end)) {
+            return false;
+        }
+        bookedWindows.put(start, end);
+        return true;
+    }
+
+    // This frees a window that was booked earlier
+    public synchronized boolean release(LocalDateTime start, LocalDateTime end) {
+        return bookedWindows.remove(start, end);
+    }
+
+    // This counts how many windows are booked
+    public synchronized int getBookedWindowCount() {
+        return bookedWindows.size();
+    }
+}
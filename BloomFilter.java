@@ -0,0 +1,56 @@
+import java.nio.charset.StandardCharsets;
+
+// This class is a Bloom filter: a compact bit set that answers "might this key be in the set?".
+// A "no" is always right, so most lookups of keys that do not exist never have to touch the disk.
+// A "yes" may be wrong (about 1% of the time at the planned size) and has to be checked for real.
+// Keys can be added but not removed; a removed key just keeps answering "maybe".
+class BloomFilter {
+    private static final int HASH_COUNT = 7;  // Bits per key; 7 suits about 10 bits per key (~1% false "yes")
+    private static final int BITS_PER_KEY = 10;
+
+    private long[] bits;
+    private int bitCount;
+
+    // This is a constructor - it creates an empty filter sized for the given number of keys
+    public BloomFilter(int capacity) {
+        this.bitCount = (int) Math.min((long) Math.max(capacity, 64) * BITS_PER_KEY, Integer.MAX_VALUE - 63);
+        this.bits = new long[(bitCount + 63) / 64];
+    }
+
+    // This adds a key
+    public void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;  // Odd, so the probes never repeat early
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // This reports whether the key might have been added (false means it certainly was not)
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;  // Odd, so the probes never repeat early
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Helper method that computes a 64-bit hash of a key (FNV-1a, then mixed)
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,7 +1,13 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 class Booking {
+    // Confirmation numbers are the booking ID with this prefix, e.g. PJ-000042
+    private static final String CONFIRMATION_PREFIX = "PJ-";
+
     // These variables store information about each booking
+    private long id = -1;          // Unique ID given by BookingManager, in the order bookings are made
     private User user;             // Which customer made this booking
     private Jet jet;               // Which jet was booked
     private String departure;      // Where the flight will take off from
@@ -11,7 +17,15 @@ class Booking {
     private String flightDate;     // When the flight will happen
     private int flightDuration;    // How long the flight will last (in hours)
     private double totalCost;      // How much the booking costs in total
+    private int legs;              // How many legs the booking is priced for, and blocks the jet for
     private double change;
+    private boolean reserved;      // Whether this booking currently holds a window in the jet's calendar
+    private BookingManager manager; // The manager indexing this booking (null if none)
+
+    // What the manager's statistics counted this booking under, so it is taken away from the same
+    // totals even if its jet's type was changed in the meantime (set by BookingStatistics)
+    private int countedTypeCode = -1;
+    private double countedHours;
 
     // This is a constructor - it creates a new Booking with all the necessary information
     public Booking(User user, Jet jet, String departure, String destination,
@@ -28,12 +42,17 @@ class Booking {
 
         // Calculate the total cost based on jet hourly rate and flight duration
         calculateTotalCost();
-
-        // Make the jet unavailable since it's now booked
-        jet.setAvailable(false);
     }
 
     // These "getter" methods allow other parts of the program to access the booking's information
+    public long getId() {
+        return id;
+    }
+
+    public String getConfirmationNumber() {
+        return String.format("%s%06d", CONFIRMATION_PREFIX, id);
+    }
+
     public User getUser() {
         return user;
     }
@@ -66,25 +85,59 @@ class Booking {
         return totalCost;
     }
 
+    public double getChange() {
+        return change;
+    }
+
     // These "setter" methods allow other parts of the program to change the booking's information
+    // Changing anything the manager indexes or adds up (user, jet, route, dates, duration, trip type)
+    // takes the booking out of the manager's indexes and totals first, and puts it back afterwards
     public void setUser(User user) {
+        beforeChange();
         this.user = user;
+        afterChange();
     }
 
     public void setJet(Jet jet) {
-        this.jet = jet;
+        beforeChange();
+        try {
+            Jet oldJet = this.jet;
+            this.jet = jet;
+            reschedule(oldJet, flightDate, flightDuration, tripType, legs);
+        } finally {
+            afterChange();
+        }
     }
 
     public void setDeparture(String departure) {
+        beforeChange();
         this.departure = departure;
+        afterChange();
     }
 
     public void setDestination(String destination) {
+        beforeChange();
         this.destination = destination;
+        afterChange();
     }
 
     public void setTripType(String tripType) {
-        this.tripType = tripType;
+        beforeChange();
+        try {
+            String oldTripType = this.tripType;
+            int oldLegs = this.legs;
+            double oldTotalCost = this.totalCost;
+            this.tripType = tripType;
+            calculateTotalCost();
+            try {
+                reschedule(jet, flightDate, flightDuration, oldTripType, oldLegs);
+            } catch (IllegalStateException e) {
+                this.totalCost = oldTotalCost;
+                throw e;
+            }
+        } finally {
+            afterChange();
+        }
     }
 
     public void setBookingDate(String bookingDate) {
@@ -92,7 +145,14 @@ class Booking {
     }
 
     public void setFlightDate(String flightDate) {
-        this.flightDate = flightDate;
+        beforeChange();
+        try {
+            String oldFlightDate = this.flightDate;
+            this.flightDate = flightDate;
+            reschedule(jet, oldFlightDate, flightDuration, tripType, legs);
+        } finally {
+            afterChange();
+        }
     }
 
     public int getFlightDuration() {
@@ -100,22 +160,155 @@ class Booking {
     }
 
     public void setFlightDuration(int flightDuration) {
-        this.flightDuration = flightDuration;
-        calculateTotalCost();
+        beforeChange();
+        try {
+            int oldFlightDuration = this.flightDuration;
+            int oldLegs = this.legs;
+            double oldTotalCost = this.totalCost;
+            this.flightDuration = flightDuration;
+            calculateTotalCost();
+            try {
+                reschedule(jet, flightDate, oldFlightDuration, tripType, oldLegs);
+            } catch (IllegalStateException e) {
+                this.totalCost = oldTotalCost;
+                throw e;
+            }
+        } finally {
+            afterChange();
+        }
+    }
+
+    // The window in which the jet is busy with this booking: from the start of the flight date,
+    // for the flight duration once per leg (twice for a round trip, since the jet has to fly back)
+    public LocalDateTime getFlightStart() {
+        return windowStart(flightDate);
+    }
+
+    public LocalDateTime getFlightEnd() {
+        return windowEnd(flightDate, flightDuration, legs);
+    }
+
+    // This books this booking's window in the jet's calendar, and reports false if it is already taken
+    public synchronized boolean reserve() {
+        if (reserved) {
+            return true;
+        }
+        reserved = jet.getCalendar().reserve(getFlightStart(), getFlightEnd());
+        return reserved;
     }
 
     // The Proceeding Methods are simple codes that are required in the booking process
+    // The legs are taken from the same PricingEngine, so the calendar window always covers what was charged
     private void calculateTotalCost() {
-        double multiplier = tripType.equalsIgnoreCase("Round-trip") ? 2.0 : 1.0;
-        this.totalCost = jet.getHourlyRate() * flightDuration * multiplier;
+        PricingEngine pricingEngine = PricingEngine.getInstance();
+        this.legs = pricingEngine.getLegs(tripType);
+        this.totalCost = pricingEngine.quote(jet, tripType, flightDuration);
+    }
+
+    public synchronized void cancelBooking() {
+        if (reserved) {
+            jet.getCalendar().release(getFlightStart(), getFlightEnd());
+            reserved = false;
+        }
+    }
+
+    // This is used by BookingManager to give the booking its ID
+    void setId(long id) {
+        this.id = id;
+    }
+
+    // This is used when a booking is restored from disk, so it keeps the price it was booked at
+    void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    // This turns a confirmation number back into a booking ID, or returns -1 if it is not valid
+    static long parseConfirmationNumber(String confirmationNumber) {
+        if (confirmationNumber == null) {
+            return -1;
+        }
+        String digits = confirmationNumber.trim().toUpperCase();
+        if (digits.startsWith(CONFIRMATION_PREFIX)) {
+            digits = digits.substring(CONFIRMATION_PREFIX.length());
+        }
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // These are used by BookingStatistics to remember which jet type and how many hours it counted
+    int getCountedTypeCode() {
+        return countedTypeCode;
+    }
+
+    double getCountedHours() {
+        return countedHours;
+    }
+
+    void setCounted(int typeCode, double hours) {
+        this.countedTypeCode = typeCode;
+        this.countedHours = hours;
+    }
+
+    // This is used by BookingManager to tell the booking which manager indexes it
+    void setManager(BookingManager manager) {
+        this.manager = manager;
+    }
+
+    // Removes the booking from the manager's indexes and totals before one of its values changes
+    private void beforeChange() {
+        if (manager != null) {
+            manager.unindexBooking(this);
+        }
+    }
+
+    // Puts the booking back into the manager's indexes and totals after the change
+    private void afterChange() {
+        if (manager != null) {
+            manager.indexBooking(this);
+        }
+    }
+
+    // Helper method that moves the calendar window after the jet, date, duration or trip type changed.
+    // The old values are passed in; if the new window is already taken, the old values are put back.
+    private void reschedule(Jet oldJet, String oldFlightDate, int oldFlightDuration, String oldTripType, int oldLegs) {
+        if (!reserved) {
+            return;
+        }
+        LocalDateTime oldStart = windowStart(oldFlightDate);
+        LocalDateTime oldEnd = windowEnd(oldFlightDate, oldFlightDuration, oldLegs);
+        oldJet.getCalendar().release(oldStart, oldEnd);
+
+        if (!jet.getCalendar().reserve(getFlightStart(), getFlightEnd())) {
+            oldJet.getCalendar().reserve(oldStart, oldEnd);
+            this.jet = oldJet;
+            this.flightDate = oldFlightDate;
+            this.flightDuration = oldFlightDuration;
+            this.tripType = oldTripType;
+            this.legs = oldLegs;
+            throw new IllegalStateException("The jet is already booked in the new time window");
+        }
+    }
+
+    // Helper methods that turn a flight date, duration and trip type into a calendar window
+    static LocalDateTime windowStart(String flightDate) {
+        return LocalDate.parse(flightDate).atStartOfDay();
+    }
+
+    // The number of legs comes from PricingEngine, the same place the price gets it from
+    static LocalDateTime windowEnd(String flightDate, int flightDuration, String tripType) {
+        return windowEnd(flightDate, flightDuration, PricingEngine.getInstance().getLegs(tripType));
     }
 
-    public void cancelBooking() {
-        jet.setAvailable(true);
+    static LocalDateTime windowEnd(String flightDate, int flightDuration, int legs) {
+        return windowStart(flightDate).plusHours((long) flightDuration * legs);
     }
 
     public void displayBookingDetails() {
         UserInterface.printSubHeader("\n----- Booking Details -----");
+        UserInterface.printInfo("Confirmation No.: " + getConfirmationNumber());
         UserInterface.printInfo("User: " + user.getUsername());
         UserInterface.printInfo("Jet: " + jet.getModel() + " (" + jet.getType() + ")");
         UserInterface.printInfo("Route: " + departure + " to " + destination);
@@ -0,0 +1,399 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+// This class writes every new booking and every cancellation to an append-only file on disk,
+// before it takes effect, and reads that file back at startup so no booking is lost on a restart.
+// Jets added or deleted by an admin are written to it as well, so bookings on them can be replayed.
+//
+// File layout: a 4-byte magic number, then one record after another. Each record is
+//   [int payload length][int CRC32 of the payload][payload]
+// and the payload starts with the record kind (CREATE, CANCEL, JET_ADD or JET_REMOVE) followed by its fields.
+// A record cut off by a crash, or damaged on disk, fails its length or CRC check; replay stops there
+// and cuts the file back to the last good record.
+//
+// Writers that arrive while a flush is running are batched into the next flush, so many
+// concurrent bookings share a single fsync instead of waiting for one each (group commit).
+// If a flush fails, the file is cut back to the end of the last flush that worked, so none of the
+// failed records can come back on replay, and every writer in that flush gets the error.
+// Only if the file cannot be cut back is the journal broken for good: from then on the records
+// after the last good flush may or may not be on disk, and every write fails.
+class BookingJournal implements Closeable {
+    private static final int MAGIC = 0x504A424A;       // "PJBJ"
+    private static final int HEADER_BYTES = 8;         // Length and CRC in front of every record
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final byte CREATE = 1;
+    private static final byte CANCEL = 2;
+    private static final byte JET_ADD = 3;
+    private static final byte JET_REMOVE = 4;
+
+    private FileChannel channel;
+    private ByteArrayOutputStream pending;  // Records appended but not written to the file yet
+    private long appendedCount;             // How many records have been appended so far
+    private long durableCount;              // How many of them are safely on disk (or were lost in a failed flush)
+    private long durableBytes;              // Where the last record that is safely on disk ends in the file
+    private boolean flushing;               // Whether some writer is flushing right now
+    private IOException failure;            // The error that broke the journal for good (null if none)
+
+    // Flushes that failed and were cut off the file again: last position -> the batch's first position and error.
+    // Entries are tiny and only made on an I/O error, so they are simply kept.
+    private NavigableMap<Long, LostBatch> lostBatches;
+
+    // This is a constructor - it wraps an open journal file
+    private BookingJournal(FileChannel channel) {
+        this.channel = channel;
+        this.pending = new ByteArrayOutputStream();
+        this.lostBatches = new TreeMap<>();
+    }
+
+    // This opens the journal file, creating it if it does not exist yet
+    public static BookingJournal open(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer magic = ByteBuffer.allocate(4).putInt(MAGIC);
+                magic.flip();
+                while (magic.hasRemaining()) {
+                    channel.write(magic);
+                }
+                channel.force(true);
+            }
+            BookingJournal journal = new BookingJournal(channel);
+            journal.durableBytes = channel.size();
+            channel.position(journal.durableBytes);
+            return journal;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // This reads every good record back into the booking manager, then cuts off a damaged tail.
+    // It must run before the journal is handed to the booking manager, so replayed records are not written again.
+    public void replay(BookingManager bookingManager, JetInventory jetInventory, UserManager userManager) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Booking journal is too large to replay");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the whole file is in the buffer
+        }
+        buffer.flip();
+
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a booking journal file");
+        }
+
+        int restored = 0;
+        int skipped = 0;
+        int goodEnd = buffer.position();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                break; // Torn or damaged record
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            if (apply(payload, bookingManager, jetInventory, userManager)) {
+                restored++;
+            } else {
+                skipped++;
+            }
+            goodEnd = buffer.position();
+        }
+
+        if (goodEnd < size) {
+            System.out.println("Booking journal: ignored " + (size - goodEnd) + " damaged bytes at the end of the file.");
+            channel.truncate(goodEnd);
+            channel.force(true);
+        }
+        channel.position(goodEnd);
+        durableBytes = goodEnd;
+
+        if (restored > 0 || skipped > 0) {
+            System.out.println("Booking journal replayed. Records applied: " + restored
+                    + (skipped > 0 ? ", skipped: " + skipped : ""));
+        }
+    }
+
+    // This writes a cancellation to the journal and waits until it is on disk
+    public void logCancel(long bookingId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(CANCEL);
+        out.writeLong(bookingId);
+        awaitDurable(append(bytes.toByteArray()));
+    }
+
+    // This writes a new jet (with the cruise speed of its type) to the journal and waits until it is on disk
+    public void logJetAdd(Jet jet, double cruiseKnots) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(JET_ADD);
+        out.writeInt(jet.getId());
+        writeText(out, jet.getModel());
+        writeText(out, jet.getType());
+        out.writeInt(jet.getSeatCapacity());
+        out.writeBoolean(jet.isAvailable());
+        out.writeDouble(jet.getHourlyRate());
+        out.writeDouble(cruiseKnots);
+        awaitDurable(append(bytes.toByteArray()));
+    }
+
+    // This writes the deletion of a jet to the journal and waits until it is on disk
+    public void logJetRemove(int jetId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(JET_REMOVE);
+        out.writeInt(jetId);
+        awaitDurable(append(bytes.toByteArray()));
+    }
+
+    // This adds a new booking to the journal without waiting, and returns its position for awaitDurable.
+    // Appending a whole batch and then waiting for the last one costs a single flush.
+    public long appendCreate(Booking booking) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(CREATE);
+        out.writeLong(booking.getId());
+        out.writeInt(booking.getJet().getId());
+        writeText(out, booking.getUser().getUsername());
+        writeText(out, booking.getDeparture());
+        writeText(out, booking.getDestination());
+        writeText(out, booking.getTripType());
+        writeText(out, booking.getBookingDate());
+        writeText(out, booking.getFlightDate());
+        out.writeInt(booking.getFlightDuration());
+        out.writeDouble(booking.getChange());
+        out.writeDouble(booking.getTotalCost());
+        return append(bytes.toByteArray());
+    }
+
+    // This waits until the record at the given position, and every record before it, is on disk.
+    // The first writer to arrive flushes everything appended so far; the others wait for it.
+    // If it throws, the record is not in the journal, unless the journal says it is broken for good.
+    public void awaitDurable(long position) throws IOException {
+        while (true) {
+            byte[] batch;
+            long batchStart;
+            long batchEnd;
+            synchronized (this) {
+                while (flushing && durableCount < position && failure == null) {
+                    waitForFlush();
+                }
+                if (durableCount >= position) {
+                    Map.Entry<Long, LostBatch> lost = lostBatches.ceilingEntry(position);
+                    if (lost != null && lost.getValue().first <= position) {
+                        throw new IOException("Booking journal write failed, nothing was saved", lost.getValue().error);
+                    }
+                    return;
+                }
+                if (failure != null) {
+                    throw brokenError();
+                }
+                flushing = true;
+                batch = pending.toByteArray();
+                pending.reset();
+                batchStart = durableCount + 1;
+                batchEnd = appendedCount;
+            }
+
+            IOException error = null;
+            boolean cutBack = false;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+                cutBack = cutBackToDurable();
+            }
+
+            synchronized (this) {
+                flushing = false;
+                if (error == null) {
+                    durableCount = batchEnd;
+                    durableBytes += batch.length;
+                } else if (cutBack) {
+                    durableCount = batchEnd;
+                    lostBatches.put(batchEnd, new LostBatch(batchStart, error));
+                } else {
+                    failure = error;
+                }
+                notifyAll();
+            }
+            if (error != null) {
+                throw cutBack ? new IOException("Booking journal write failed, nothing was saved", error)
+                        : brokenError();
+            }
+        }
+    }
+
+    // This empties the journal once everything in it has been saved in a snapshot
+    public synchronized void reset() throws IOException {
+        while (flushing) {
+            waitForFlush();
+        }
+        if (appendedCount > durableCount) {
+            throw new IOException("Booking journal still has records waiting to be written");
+        }
+        if (failure != null) {
+            throw brokenError();
+        }
+        channel.truncate(4); // Keep only the magic number
+        channel.position(4);
+        channel.force(true);
+        durableBytes = 4;
+    }
+
+    // This tells whether the journal is broken for good, so nothing more can be saved until it is reopened
+    public synchronized boolean isBroken() {
+        return failure != null;
+    }
+
+    // This closes the journal file
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Helper method that frames a payload and queues it for the next flush
+    private synchronized long append(byte[] payload) throws IOException {
+        if (failure != null) {
+            throw brokenError();
+        }
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("Booking journal record is too large");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        DataOutputStream out = new DataOutputStream(pending);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        return ++appendedCount;
+    }
+
+    // Helper method that cuts the file back to the last good flush after a failed one, and reports whether it worked.
+    // Only the flushing writer touches the file, so nothing else writes while it does this.
+    private boolean cutBackToDurable() {
+        try {
+            channel.truncate(durableBytes);
+            channel.position(durableBytes);
+            channel.force(true);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Helper method that builds the error for a journal that is broken for good
+    private IOException brokenError() {
+        return new IOException("Booking journal is broken after a failed write and could not be cut back;"
+                + " the last changes may or may not be on disk, restart to reload them", failure);
+    }
+
+    // Helper method that turns one record back into a booking, cancellation, or jet change
+    private boolean apply(byte[] payload, BookingManager bookingManager, JetInventory jetInventory,
+                          UserManager userManager) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = in.readByte();
+        if (kind == JET_ADD) {
+            return applyJetAdd(in, jetInventory);
+        }
+        if (kind == JET_REMOVE) {
+            return jetInventory.removeJetById(in.readInt()) != null;
+        }
+        long bookingId = in.readLong();
+        if (kind == CANCEL) {
+            Booking booking = bookingManager.findBookingById(bookingId);
+            return booking != null && bookingManager.cancelBooking(booking);
+        }
+        if (kind != CREATE) {
+            return false;
+        }
+
+        int jetId = in.readInt();
+        String username = in.readUTF();
+        String departure = in.readUTF();
+        String destination = in.readUTF();
+        String tripType = in.readUTF();
+        String bookingDate = in.readUTF();
+        String flightDate = in.readUTF();
+        int flightDuration = in.readInt();
+        double change = in.readDouble();
+        double totalCost = in.readDouble();
+
+        Jet jet = jetInventory.getJetById(jetId);
+        User user = userManager.findUserByUsername(username);
+        if (jet == null || user == null) {
+            bookingManager.skipBookingId(bookingId);
+            return false;
+        }
+        Booking booking = new Booking(user, jet, departure, destination,
+                tripType, bookingDate, flightDate, flightDuration, change);
+        booking.setTotalCost(totalCost);
+        return bookingManager.restoreBooking(booking, bookingId);
+    }
+
+    // Helper method that puts a jet from the journal back into the inventory, keeping its ID
+    private boolean applyJetAdd(DataInputStream in, JetInventory jetInventory) throws IOException {
+        int jetId = in.readInt();
+        Jet jet = new Jet(in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean(), in.readDouble());
+        double cruiseKnots = in.readDouble();
+        if (jetInventory.getJetById(jetId) != null) {
+            return false; // Already there
+        }
+        if (cruiseKnots > 0 && jetInventory.getCruiseKnots(jet.getType()) <= 0) {
+            jetInventory.setCruiseKnots(jet.getType(), cruiseKnots);
+        }
+        jet.setId(jetId);
+        jetInventory.addJet(jet);
+        return true;
+    }
+
+    // Helper method that writes a text field, storing a missing value as empty text
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        out.writeUTF(value == null ? "" : value);
+    }
+
+    // A flush that failed and was cut off the file: its first position and the error it failed with
+    private static class LostBatch {
+        private final long first;
+        private final IOException error;
+
+        private LostBatch(long first, IOException error) {
+            this.first = first;
+            this.error = error;
+        }
+    }
+
+    // Helper method that waits for the running flush, turning an interrupt into an I/O error
+    private void waitForFlush() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the booking journal");
+        }
+    }
+}
@@ -1,26 +1,86 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 // This class manages all jet bookings in the system
+// It is safe to use from many threads at once. Claiming a jet is a single step on that jet's own
+// calendar, so two clients can never book the same jet for overlapping times, while bookings of
+// different jets never wait for each other. Everything else uses concurrent maps, not a global lock.
 class BookingManager {
-    // A list that holds all bookings
-    private List<Booking> bookings;
+    // Orders bookings by ID, which is the order they were made in
+    private static final Comparator<Booking> BY_ID = Comparator.comparingLong(Booking::getId);
+
+    // A map that holds all bookings by their ID. IDs only go up, so it keeps them in the order they were made.
+    private ConcurrentSkipListMap<Long, Booking> bookings;
+    private AtomicLong nextBookingId;  // The ID the next booking will get; IDs only ever go up
+
+    // Indexes over the same bookings, so lookups only touch the bookings they return.
+    // They are always updated together with the map, in createBooking and cancelBooking.
+    // Each set keeps its bookings sorted by ID, so they come back in the order they were made.
+    private ConcurrentHashMap<User, Set<Booking>> bookingsByUser;                // User -> that user's bookings
+    private ConcurrentHashMap<Jet, Set<Booking>> bookingsByJet;                  // Jet -> bookings of that jet
+    private ConcurrentSkipListMap<LocalDate, Set<Booking>> bookingsByFlightDate; // Flight date -> bookings that day
+
+    // Running revenue and flight-hour totals, kept up to date together with the indexes
+    private BookingStatistics statistics;
+
+    // Requests waiting for a jet that was already booked; served when a booking of that jet is cancelled
+    private Waitlist waitlist;
+
+    // Where every new booking and cancellation is written before it takes effect (null if none)
+    private volatile BookingJournal journal;
 
     // This is a constructor - it creates a new empty booking manager
     public BookingManager() {
-        this.bookings = new ArrayList<>();
+        this.bookings = new ConcurrentSkipListMap<>();
+        this.nextBookingId = new AtomicLong(1);
+        this.bookingsByUser = new ConcurrentHashMap<>();
+        this.bookingsByJet = new ConcurrentHashMap<>();
+        this.bookingsByFlightDate = new ConcurrentSkipListMap<>();
+        this.statistics = new BookingStatistics();
+        this.waitlist = new Waitlist();
+    }
+
+    // This tells whether the journal broke for good, so no change can be saved until a restart
+    public boolean isJournalBroken() {
+        BookingJournal currentJournal = journal;
+        return currentJournal != null && currentJournal.isBroken();
+    }
+
+    // This makes the manager write every change to the given journal from now on
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
     }
 
-    // This creates a new booking in the system
+    // This creates a new booking in the system.
+    // It returns null if the jet is out of service or already booked at that time, and throws
+    // an IOException if the booking could not be saved (it is then not made).
     public Booking createBooking(User user, Jet jet, String departure, String destination,
                                  String tripType, String bookingDate, String flightDate,
-                                 int flightDuration, double change) {
+                                 int flightDuration, double change) throws IOException {
 
-        // Only create booking if the jet is available
+        // Only create booking if the jet is in service and free for the whole flight window
         if (jet.isAvailable()) {
             Booking newBooking = new Booking(user, jet, departure, destination,
                     tripType, bookingDate, flightDate, flightDuration, change);
-            bookings.add(newBooking);
-            user.addBooking(newBooking);
+            // This is the one step that claims the jet; it is atomic per jet
+            if (!newBooking.reserve()) {
+                return null; // The jet is already booked at that time
+            }
+            newBooking.setId(nextBookingId.getAndIncrement());
+            try {
+                writeToJournal(Collections.singletonList(newBooking));
+            } catch (IOException e) {
+                newBooking.cancelBooking(); // Not saved, so give the window back
+                throw e;
+            }
+            register(newBooking);
 
             return newBooking;
         }
@@ -28,40 +88,321 @@ class BookingManager {
         return null;
     }
 
-    // This cancels an existing booking
-    public boolean cancelBooking(Booking booking) {
-        if (bookings.contains(booking)) {
-            booking.cancelBooking(); // Make the jet available again
+    // This books a whole batch of requests at once, booking as many as possible (best effort)
+    public List<BookingResult> createBookings(List<BookingRequest> requests) {
+        return createBookings(requests, false);
+    }
+
+    // This books a whole batch of requests at once and returns one result per request, in the same order.
+    // Requests are grouped by jet, and each jet's calendar is locked once for its whole group.
+    // When two requests in the batch want the same jet at overlapping times, the one listed first wins.
+    // With allOrNothing set, either every request is booked or none is.
+    public List<BookingResult> createBookings(List<BookingRequest> requests, boolean allOrNothing) {
+        BookingResult[] results = new BookingResult[requests.size()];
+        Booking[] reserved = new Booking[requests.size()];
+
+        // First pass: check every request and group the valid ones by jet, keeping their order
+        Map<Jet, List<Integer>> requestsByJet = new LinkedHashMap<>();
+        boolean anyFailed = false;
+        for (int i = 0; i < requests.size(); i++) {
+            String problem = validate(requests.get(i));
+            if (problem != null) {
+                results[i] = new BookingResult(requests.get(i), problem);
+                anyFailed = true;
+            } else {
+                requestsByJet.computeIfAbsent(requests.get(i).getJet(), key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Second pass: claim the time windows, one jet at a time
+        if (!(allOrNothing && anyFailed)) {
+            for (Map.Entry<Jet, List<Integer>> group : requestsByJet.entrySet()) {
+                synchronized (group.getKey().getCalendar()) {
+                    for (int i : group.getValue()) {
+                        BookingRequest request = requests.get(i);
+                        Booking booking = new Booking(request.getUser(), request.getJet(),
+                                request.getDeparture(), request.getDestination(), request.getTripType(),
+                                request.getBookingDate(), request.getFlightDate(), request.getFlightDuration(),
+                                request.getChange());
+                        if (booking.reserve()) {
+                            reserved[i] = booking;
+                        } else {
+                            results[i] = new BookingResult(request, "The jet is already booked at that time");
+                            anyFailed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Next: give every window back if the batch failed, otherwise number the bookings in request order
+        List<Booking> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            if (allOrNothing && anyFailed) {
+                if (reserved[i] != null) {
+                    reserved[i].cancelBooking();
+                }
+                results[i] = new BookingResult(requests.get(i), "Not booked because another request in the batch failed");
+            } else {
+                reserved[i].setId(nextBookingId.getAndIncrement());
+                accepted.add(reserved[i]);
+            }
+        }
+
+        // Last pass: save the whole batch with a single disk flush, then register it
+        String saveError = null;
+        try {
+            writeToJournal(accepted);
+        } catch (IOException e) {
+            saveError = "The booking could not be saved: " + e.getMessage();
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            if (saveError == null) {
+                register(reserved[i]);
+                results[i] = new BookingResult(requests.get(i), reserved[i]);
+            } else {
+                reserved[i].cancelBooking();
+                results[i] = new BookingResult(requests.get(i), saveError);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Helper method that checks a batch request and returns what is wrong with it (null if nothing)
+    private String validate(BookingRequest request) {
+        if (request.getUser() == null) {
+            return "No user given";
+        }
+        if (request.getJet() == null) {
+            return "No jet given";
+        }
+        if (!request.getJet().isAvailable()) {
+            return "The jet is out of service";
+        }
+        if (request.getFlightDuration() <= 0) {
+            return "The flight duration must be at least one hour";
+        }
+        if (request.getTripType() == null) {
+            return "No trip type given";
+        }
+        if (request.getFlightDate() == null) {
+            return "No flight date given";
+        }
+        try {
+            Booking.windowStart(request.getFlightDate());
+        } catch (DateTimeParseException e) {
+            return "Invalid flight date: " + request.getFlightDate();
+        }
+        return null;
+    }
+
+    // Helper method that adds a numbered booking that already holds its window everywhere
+    private void register(Booking booking) {
+        booking.setManager(this);
+        booking.getUser().addBooking(booking);
+        indexBooking(booking);
+        // Only now can the booking be cancelled, once everything above is in place
+        bookings.put(booking.getId(), booking);
+    }
+
+    // Helper method that writes new bookings to the journal and waits for one flush for all of them.
+    // If it throws, none of them is in the journal (unless the journal reports itself broken for good).
+    private void writeToJournal(List<Booking> newBookings) throws IOException {
+        BookingJournal currentJournal = journal;
+        if (currentJournal == null || newBookings.isEmpty()) {
+            return;
+        }
+        long last = 0;
+        for (Booking booking : newBookings) {
+            last = currentJournal.appendCreate(booking);
+        }
+        currentJournal.awaitDurable(last);
+    }
+
+    // This puts a booking read back from disk into the system under its old ID (used by BookingJournal)
+    boolean restoreBooking(Booking booking, long id) {
+        skipBookingId(id);
+        if (bookings.containsKey(id) || !booking.reserve()) {
+            return false;
+        }
+        booking.setId(id);
+        register(booking);
+        return true;
+    }
+
+    // This makes sure an ID that was used before is never handed out again, even if its booking is gone
+    void skipBookingId(long id) {
+        nextBookingId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // This returns the ID the next booking will get, so a snapshot can save it
+    long getNextBookingId() {
+        return nextBookingId.get();
+    }
+
+    // This cancels an existing booking in O(log n).
+    // It returns false if the booking is not (or no longer) held here, and throws an IOException
+    // if the cancellation could not be saved (the booking then stays as it was).
+    public boolean cancelBooking(Booking booking) throws IOException {
+        if (booking == null) {
+            return false;
+        }
+        // Locking the booking decides which caller gets to cancel, if two try at once.
+        // The cancellation is saved before the booking leaves the map, so nobody sees it gone and back again.
+        synchronized (booking) {
+            if (!containsBooking(booking)) {
+                return false;
+            }
+            BookingJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logCancel(booking.getId());
+            }
+            bookings.remove(booking.getId(), booking);
+            booking.cancelBooking(); // Free the booked window in the jet's calendar
             booking.getUser().cancelBooking(booking); // Remove from user's bookings
-            return bookings.remove(booking); // Remove from global list
+            unindexBooking(booking); // Remove from the lookup indexes
+            booking.setManager(null);
         }
-        return false;
+        fulfilWaitlist(booking); // Give the freed window to whoever is waiting for it
+        return true;
     }
 
-    // This finds all bookings for a specific user
-    public List<Booking> findBookingsByUser(User user) {
-        List<Booking> userBookings = new ArrayList<>();
+    // This puts a request that could not be booked on the waitlist for its jet and day.
+    // It returns false if the request is not valid. If the jet has become free in the meantime,
+    // the request is booked right away (the user is notified either way once it is booked).
+    public boolean joinWaitlist(BookingRequest request) {
+        if (validate(request) != null) {
+            return false;
+        }
+        waitlist.add(request, request.getUser().getLoyaltyTier());
+        fulfilWaitlist(request.getJet(), LocalDate.parse(request.getFlightDate()));
+        return true;
+    }
+
+    // This counts how many requests are waiting for a jet on a day
+    public int getWaitlistCount(Jet jet, LocalDate day) {
+        return waitlist.getWaitingCount(jet, day);
+    }
+
+    // Helper method that serves the waitlist for every day the cancelled booking's window touched
+    private void fulfilWaitlist(Booking cancelled) {
+        LocalDateTime end = cancelled.getFlightEnd();
+        for (LocalDate day = flightDay(cancelled); day.atStartOfDay().isBefore(end); day = day.plusDays(1)) {
+            fulfilWaitlist(cancelled.getJet(), day);
+        }
+    }
 
-        for (Booking booking : bookings) {
-            if (booking.getUser().equals(user)) {
-                userBookings.add(booking);
+    // Helper method that books the best waiting requests for a jet and day, as long as they fit
+    private void fulfilWaitlist(Jet jet, LocalDate day) {
+        WaitlistEntry entry;
+        while ((entry = waitlist.pollFirstThatFits(jet, day)) != null) {
+            BookingRequest request = entry.getRequest();
+            Booking booking;
+            try {
+                booking = createBooking(request.getUser(), request.getJet(), request.getDeparture(),
+                        request.getDestination(), request.getTripType(), request.getBookingDate(),
+                        request.getFlightDate(), request.getFlightDuration(), request.getChange());
+            } catch (IOException e) {
+                System.out.println("Error writing booking journal: " + e.getMessage());
+                waitlist.putBack(entry); // Try again with the next cancellation
+                return;
+            }
+            if (booking == null) {
+                waitlist.putBack(entry); // Someone else got the window first, or the jet went out of service
+                return;
             }
+            request.getUser().addNotification("Your waitlisted request for " + jet.getModel() + " on "
+                    + request.getFlightDate() + " is now booked. Confirmation No.: " + booking.getConfirmationNumber());
         }
+    }
 
-        return userBookings;
+    // This checks whether a booking is currently held by this manager
+    public boolean containsBooking(Booking booking) {
+        return booking != null && bookings.get(booking.getId()) == booking;
+    }
+
+    // This finds a booking by its ID (or returns null if there is none)
+    public Booking findBookingById(long id) {
+        return bookings.get(id);
+    }
+
+    // This finds a booking by its confirmation number, e.g. "PJ-000042" (or returns null if there is none)
+    public Booking findBookingByConfirmationNumber(String confirmationNumber) {
+        long id = Booking.parseConfirmationNumber(confirmationNumber);
+        return id < 0 ? null : bookings.get(id);
+    }
+
+    // This finds all bookings for a specific user
+    public List<Booking> findBookingsByUser(User user) {
+        return new ArrayList<>(bookingsByUser.getOrDefault(user, Collections.emptySet()));
     }
 
     // This finds all bookings for a specific jet
     public List<Booking> findBookingsByJet(Jet jet) {
-        List<Booking> jetBookings = new ArrayList<>();
+        return new ArrayList<>(bookingsByJet.getOrDefault(jet, Collections.emptySet()));
+    }
 
-        for (Booking booking : bookings) {
-            if (booking.getJet().equals(jet)) {
-                jetBookings.add(booking);
-            }
+    // This finds all bookings with a flight date between from and to (both inclusive), sorted by date
+    public List<Booking> findBookingsByFlightDate(LocalDate from, LocalDate to) {
+        List<Booking> dateBookings = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return dateBookings;
+        }
+        for (Set<Booking> dayBookings : bookingsByFlightDate.subMap(from, true, to, true).values()) {
+            dateBookings.addAll(dayBookings);
         }
+        return dateBookings;
+    }
 
-        return jetBookings;
+    // This adds a booking to every index and to the statistics (also called by the Booking setters)
+    void indexBooking(Booking booking) {
+        addToIndex(bookingsByUser, booking.getUser(), booking);
+        addToIndex(bookingsByJet, booking.getJet(), booking);
+        bookingsByFlightDate.computeIfAbsent(flightDay(booking), key -> new ConcurrentSkipListSet<>(BY_ID)).add(booking);
+        statistics.add(booking);
+    }
+
+    // This removes a booking from every index and from the statistics (also called by the Booking setters)
+    // Empty user and jet entries are dropped; empty days are kept, as there are only so many days.
+    void unindexBooking(Booking booking) {
+        statistics.remove(booking);
+        removeFromIndex(bookingsByUser, booking.getUser(), booking);
+        removeFromIndex(bookingsByJet, booking.getJet(), booking);
+        Set<Booking> dayBookings = bookingsByFlightDate.get(flightDay(booking));
+        if (dayBookings != null) {
+            dayBookings.remove(booking);
+        }
+    }
+
+    // Helper methods that add or remove one booking in one index entry.
+    // compute() runs atomically per key, so an entry is never dropped while another thread adds to it.
+    private <K> void addToIndex(ConcurrentHashMap<K, Set<Booking>> index, K key, Booking booking) {
+        index.compute(key, (k, indexed) -> {
+            if (indexed == null) {
+                indexed = new ConcurrentSkipListSet<>(BY_ID);
+            }
+            indexed.add(booking);
+            return indexed;
+        });
+    }
+
+    private <K> void removeFromIndex(ConcurrentHashMap<K, Set<Booking>> index, K key, Booking booking) {
+        index.computeIfPresent(key, (k, indexed) -> {
+            indexed.remove(booking);
+            return indexed.isEmpty() ? null : indexed;
+        });
+    }
+
+    // Helper method that returns the day a booking flies
+    private static LocalDate flightDay(Booking booking) {
+        return booking.getFlightStart().toLocalDate();
     }
 
     // This counts how many bookings exist in the system
@@ -69,11 +410,22 @@ class BookingManager {
         return bookings.size();
     }
 
+    // This returns the running revenue and flight-hour totals, for reports
+    public BookingStatistics getStatistics() {
+        return statistics;
+    }
+
+    // This returns every booking, in the order they were made (the map is already sorted by ID)
+    public List<Booking> getAllBookings() {
+        return new ArrayList<>(bookings.values());
+    }
+
     // This displays all bookings in the system
     public void displayAllBookings() {
         UserInterface.printSubHeader("----- All Bookings -----");
-        for (Booking booking : bookings) {
-            UserInterface.printInfo("User: " + booking.getUser().getUsername() +
+        for (Booking booking : bookings.values()) {
+            UserInterface.printInfo(booking.getConfirmationNumber() +
+                    " | User: " + booking.getUser().getUsername() +
                     ", Jet: " + booking.getJet().getModel() +
                     ", From: " + booking.getDeparture() +
                     ", To: " + booking.getDestination() +
@@ -1,7 +1,9 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class BookingMenuManager {
@@ -28,6 +30,10 @@ public class BookingMenuManager {
             UserInterface.printMenuOption(2, "Filter by Passenger Capacity");
             UserInterface.printMenuOption(3, "Filter by Budget Range");
             UserInterface.printMenuOption(4, "Show All Available Jets");
+            UserInterface.printMenuOption(5, "Show Jets Free on a Date");
+            UserInterface.printMenuOption(6, "Show Cheapest Available Jets of a Type");
+            UserInterface.printMenuOption(7, "Search by Model Name");
+            UserInterface.printMenuOption(8, "Recommend a Jet for My Group and Budget");
             UserInterface.printPrompt("Choose a filtering method: ");
 
             filterChoice = InputValidator.getIntInput();
@@ -43,11 +49,25 @@ public class BookingMenuManager {
                     filteredJets = jetBrowsingManager.filterJetsByBudget();
                     break;
                 case 4:
-                    filteredJets = jetInventory.findJets(null, 0, null);
-                    jetInventory.displayFilteredJets(filteredJets);
+                    filteredJets = jetBrowsingManager.pageThroughJets(jetInventory.search(null, 0, null));
+                    break;
+                case 5:
+                    String date = InputValidator.getDateInput("Enter flight date (YYYY-MM-DD): ");
+                    LocalDateTime dayStart = LocalDate.parse(date).atStartOfDay();
+                    filteredJets = jetBrowsingManager.pageThroughJets(
+                            jetInventory.search(null, 0, true, dayStart, dayStart.plusDays(1)));
+                    break;
+                case 6:
+                    filteredJets = jetBrowsingManager.showCheapestJetsOfType();
+                    break;
+                case 7:
+                    filteredJets = jetBrowsingManager.searchJetsByModel();
+                    break;
+                case 8:
+                    filteredJets = jetBrowsingManager.recommendJet();
                     break;
                 default:
-                    UserInterface.printError("Invalid choice. Input Only 1-4");
+                    UserInterface.printError("Invalid choice. Input Only 1-8");
                     continue;
             }
             break;
@@ -76,8 +96,12 @@ public class BookingMenuManager {
         }
 
         // Get booking details
-        String departure = InputValidator.doNotAcceptInt("Enter departure location (e.g., JFK, LAX): ", false);
-        String destination = InputValidator.doNotAcceptInt("Enter destination location: ", false);
+        AirportDatabase airports = AirportDatabase.getInstance();
+        String departure = askAirportCode("Enter departure airport code (e.g., JFK, LAX): ");
+        String destination;
+        do {
+            destination = askAirportCode("Enter destination airport code: ");
+        } while (!InputValidator.isValidRoute(departure, destination));
 
         String tripType = "";
         do {
@@ -96,20 +120,27 @@ public class BookingMenuManager {
             }
         } while (tripType.isEmpty());
 
-        String flightDate = InputValidator.getStringInput("Enter flight date (YYYY-MM-DD): ", false);
+        String flightDate = InputValidator.getDateInput("Enter flight date (YYYY-MM-DD): ");
 
-        int flightDuration;
-        do {
-            UserInterface.printPrompt("Enter estimated flight duration in hours: ");
-            flightDuration = InputValidator.getIntInput();
-
-            if (flightDuration <= 0) {
-                UserInterface.printError("Flight duration must be greater than 0. Please try again.");
-            }
-        } while (flightDuration <= 0);
+        // Work out the flight duration from the airport table when both airports are known
+        int flightDuration = airports.estimateBlockHours(departure, destination,
+                jetInventory.getCruiseKnots(selectedJet.getType()));
+        if (flightDuration > 0) {
+            UserInterface.printInfo(String.format("Estimated flight duration: %d hours (%.0f nautical miles)",
+                    flightDuration, airports.getDistanceNm(departure, destination)));
+        } else {
+            do {
+                UserInterface.printPrompt("Enter estimated flight duration in hours: ");
+                flightDuration = InputValidator.getIntInput();
+
+                if (flightDuration <= 0) {
+                    UserInterface.printError("Flight duration must be greater than 0. Please try again.");
+                }
+            } while (flightDuration <= 0);
+        }
 
         // Payment Process
-        double totalCost = selectedJet.getHourlyRate() * flightDuration * (tripType.equalsIgnoreCase("Round-trip") ? 2.0 : 1.0);
+        double totalCost = PricingEngine.getInstance().quote(selectedJet, tripType, flightDuration);
         UserInterface.printHeader("The total cost for this booking is: $" + String.format("%.2f", totalCost));
 
         double userBudget;
@@ -130,24 +161,63 @@ public class BookingMenuManager {
         String bookingDate = today.format(formatter);
 
         // Create the booking
-        Booking newBooking = bookingManager.createBooking(
-                user,
-                selectedJet,
-                departure,
-                destination,
-                tripType,
-                bookingDate,
-                flightDate,
-                flightDuration,
-                change
-        );
+        Booking newBooking;
+        try {
+            newBooking = bookingManager.createBooking(
+                    user,
+                    selectedJet,
+                    departure,
+                    destination,
+                    tripType,
+                    bookingDate,
+                    flightDate,
+                    flightDuration,
+                    change
+            );
+        } catch (IOException e) {
+            // The jet may well be free; the booking just could not be saved, so the waitlist would not help
+            UserInterface.printError("Booking failed. It could not be saved: " + e.getMessage());
+            return;
+        }
 
         if (newBooking != null) {
-            selectedJet.setAvailable(false);
             UserInterface.printSuccess("Booking successful!");
             newBooking.displayBookingDetails();
         } else {
-            UserInterface.printError("Booking failed. Please try again later.");
+            UserInterface.printError("Booking failed. This jet is already booked at that time.");
+            int waiting = bookingManager.getWaitlistCount(selectedJet, LocalDate.parse(flightDate));
+            if (waiting > 0) {
+                UserInterface.printInfo(waiting + " request(s) are already waiting for this jet on " + flightDate + ".");
+            }
+            if (InputValidator.getYesNoInput("Would you like to join the waitlist for this jet on " + flightDate + "?")) {
+                BookingRequest request = new BookingRequest(user, selectedJet, departure, destination,
+                        tripType, bookingDate, flightDate, flightDuration, change);
+                if (bookingManager.joinWaitlist(request)) {
+                    UserInterface.printSuccess("You are on the waitlist. We will book the jet for you as soon as it frees up"
+                            + " and let you know on your dashboard. The waitlist is cleared when the app closes.");
+                } else {
+                    UserInterface.printError("Could not join the waitlist, please pick another date or jet.");
+                }
+            } else {
+                UserInterface.printInfo("Please pick another date or jet.");
+            }
+        }
+    }
+
+    // Asks for an airport code and checks it against the airport table.
+    // An unknown code is only accepted if the user confirms it (the duration is then typed in by hand,
+    // as it is for a jet type whose cruise speed is not known).
+    private String askAirportCode(String prompt) {
+        AirportDatabase airports = AirportDatabase.getInstance();
+        while (true) {
+            String code = InputValidator.doNotAcceptInt(prompt, false).toUpperCase();
+            if (airports.isKnownAirport(code)) {
+                UserInterface.printInfo(code + " - " + airports.getAirportName(code));
+                return code;
+            }
+            if (InputValidator.getYesNoInput("Airport code '" + code + "' is not in our airport list. Use it anyway?")) {
+                return code;
+            }
         }
     }
 }
@@ -0,0 +1,64 @@
+// This class describes one booking a broker wants to make as part of a batch.
+// It holds the same information as BookingManager.createBooking takes.
+class BookingRequest {
+    private User user;             // Which customer the booking is for
+    private Jet jet;               // Which jet should be booked
+    private String departure;      // Where the flight will take off from
+    private String destination;    // Where the flight will land
+    private String tripType;       // Whether it's one-way or round-trip
+    private String bookingDate;    // When the booking was made
+    private String flightDate;     // When the flight will happen (YYYY-MM-DD)
+    private int flightDuration;    // How long the flight will last (in hours)
+    private double change;
+
+    // This is a constructor - it creates a new booking request
+    public BookingRequest(User user, Jet jet, String departure, String destination,
+                          String tripType, String bookingDate, String flightDate, int flightDuration, double change) {
+        this.user = user;
+        this.jet = jet;
+        this.departure = departure;
+        this.destination = destination;
+        this.tripType = tripType;
+        this.bookingDate = bookingDate;
+        this.flightDate = flightDate;
+        this.flightDuration = flightDuration;
+        this.change = change;
+    }
+
+    // These "getter" methods allow the booking manager to read the request
+    public User getUser() {
+        return user;
+    }
+
+    public Jet getJet() {
+        return jet;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getTripType() {
+        return tripType;
+    }
+
+    public String getBookingDate() {
+        return bookingDate;
+    }
+
+    public String getFlightDate() {
+        return flightDate;
+    }
+
+    public int getFlightDuration() {
+        return flightDuration;
+    }
+
+    public double getChange() {
+        return change;
+    }
+}
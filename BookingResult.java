@@ -0,0 +1,36 @@
+// This class holds the outcome of one request in a batch booking:
+// either the booking that was made, or the reason it was not made
+class BookingResult {
+    private BookingRequest request;  // The request this result answers
+    private Booking booking;         // The booking that was made (null if it failed)
+    private String failureReason;    // Why the booking was not made (null if it worked)
+
+    // This is a constructor - it creates a result for a request that was booked
+    public BookingResult(BookingRequest request, Booking booking) {
+        this.request = request;
+        this.booking = booking;
+    }
+
+    // This is a constructor - it creates a result for a request that was not booked
+    public BookingResult(BookingRequest request, String failureReason) {
+        this.request = request;
+        this.failureReason = failureReason;
+    }
+
+    // These "getter" methods allow other parts of the program to read the result
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public boolean isSuccessful() {
+        return booking != null;
+    }
+}
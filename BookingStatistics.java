@@ -0,0 +1,114 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+// This class keeps running revenue and flight-hour totals over all current bookings.
+// BookingManager adds every booking when it is indexed and takes it away again when it is
+// cancelled or changed, so a report only reads the totals (one per group) and never the bookings.
+// Jet types and routes are turned into small int codes, so every total is keyed by a plain int.
+// A jet's type can change while it has bookings, so each booking remembers the type code and hours
+// it was added with, and is taken away from exactly those totals.
+class BookingStatistics {
+    private Map<String, Integer> typeCodes;   // Jet type -> code
+    private List<String> typeNames;           // Code -> jet type
+    private Map<String, Integer> routeCodes;  // "FROM -> TO" -> code
+    private List<String> routeNames;          // Code -> route
+
+    private KeyedTotals revenueByType;        // Jet type code -> revenue
+    private KeyedTotals revenueByMonth;       // Flight month (year * 12 + month - 1) -> revenue
+    private KeyedTotals revenueByRoute;       // Route code -> revenue
+    private KeyedTotals hoursByJet;           // Jet ID -> booked flight hours
+
+    // This is a constructor - it creates empty statistics
+    public BookingStatistics() {
+        this.typeCodes = new HashMap<>();
+        this.typeNames = new ArrayList<>();
+        this.routeCodes = new HashMap<>();
+        this.routeNames = new ArrayList<>();
+        this.revenueByType = new KeyedTotals();
+        this.revenueByMonth = new KeyedTotals();
+        this.revenueByRoute = new KeyedTotals();
+        this.hoursByJet = new KeyedTotals();
+    }
+
+    // These add a booking to the totals, or take it away again
+    public synchronized void add(Booking booking) {
+        update(booking, 1);
+    }
+
+    public synchronized void remove(Booking booking) {
+        update(booking, -1);
+    }
+
+    // These reports return one entry per group, in O(groups) no matter how many bookings exist
+    // Revenue per jet type, in the order the types were first booked
+    public synchronized Map<String, Double> getRevenueByJetType() {
+        Map<String, Double> report = new LinkedHashMap<>();
+        for (int code : revenueByType.getKeys()) {
+            report.put(typeNames.get(code), revenueByType.getSum(code));
+        }
+        return report;
+    }
+
+    // Revenue per month of the flight, oldest month first
+    public synchronized Map<YearMonth, Double> getRevenueByMonth() {
+        Map<YearMonth, Double> report = new LinkedHashMap<>();
+        for (int month : revenueByMonth.getKeys()) {
+            report.put(YearMonth.of(month / 12, month % 12 + 1), revenueByMonth.getSum(month));
+        }
+        return report;
+    }
+
+    // Revenue per route, in the order the routes were first booked
+    public synchronized Map<String, Double> getRevenueByRoute() {
+        Map<String, Double> report = new LinkedHashMap<>();
+        for (int code : revenueByRoute.getKeys()) {
+            report.put(routeNames.get(code), revenueByRoute.getSum(code));
+        }
+        return report;
+    }
+
+    // Booked flight hours per jet ID, lowest ID first
+    public synchronized Map<Integer, Double> getFlightHoursByJet() {
+        Map<Integer, Double> report = new LinkedHashMap<>();
+        for (int jetId : hoursByJet.getKeys()) {
+            report.put(jetId, hoursByJet.getSum(jetId));
+        }
+        return report;
+    }
+
+    // Helper method that adds (sign 1) or takes away (sign -1) one booking in every total
+    private void update(Booking booking, int sign) {
+        double revenue = sign * booking.getTotalCost();
+        LocalDate flightDay = booking.getFlightStart().toLocalDate();
+        int month = flightDay.getYear() * 12 + flightDay.getMonthValue() - 1;
+        int typeCode;
+        double hours;
+        if (sign > 0) {
+            typeCode = code(typeCodes, typeNames, booking.getJet().getType());
+            hours = Duration.between(booking.getFlightStart(), booking.getFlightEnd()).toMinutes() / 60.0;
+            booking.setCounted(typeCode, hours);
+        } else {
+            typeCode = booking.getCountedTypeCode();
+            hours = booking.getCountedHours();
+        }
+
+        revenueByType.add(typeCode, revenue, sign);
+        revenueByMonth.add(month, revenue, sign);
+        revenueByRoute.add(code(routeCodes, routeNames, booking.getDeparture() + " -> " + booking.getDestination()),
+                revenue, sign);
+        hoursByJet.add(booking.getJet().getId(), sign * hours, sign);
+    }
+
+    // Helper method that returns the code of a name, giving it the next code the first time it is seen
+    private static int code(Map<String, Integer> codes, List<String> names, String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            code = names.size();
+            codes.put(name, code);
+            names.add(name);
+        }
+        return code;
+    }
+}
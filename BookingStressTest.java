@@ -0,0 +1,186 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// This is a stand-alone check that BookingManager stays correct when many threads book and cancel at once.
+// Run it with: java BookingStressTest [threads] [operations per thread]
+// Every thread books random jets on random days (single bookings and small batches), cancels
+// some of them again, and searches and edits the jets in the inventory while the others book them.
+// Legs last up to 16 hours, so round trips run past midnight into the next day's window.
+// Afterwards it checks that no jet is booked twice for the same time, and that the calendars,
+// the lookup indexes, the users' booking lists and the inventory's indexes all agree.
+public class BookingStressTest {
+    private static final int JET_COUNT = 4;
+    private static final int USER_COUNT = 8;
+    private static final int DAY_COUNT = 28;
+    private static final int MAX_LEG_HOURS = 16;
+    private static final double[] RATES = {1000.0, 1200.0};
+    private static final String[] TRIP_TYPES = {"One-way", "Round-trip"};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        BookingManager bookingManager = new BookingManager();
+        JetInventory jetInventory = new JetInventory();
+        for (int i = 0; i < JET_COUNT; i++) {
+            jetInventory.addJet(new Jet("Stress Jet " + i, "Light Jet", 6, true, RATES[0]));
+        }
+        List<Jet> jets = jetInventory.getAllJets();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(new User("stress" + i, "stress" + i + "@example.com", "5550100"));
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < operations; i++) {
+                    Jet jet = jets.get(random.nextInt(JET_COUNT));
+                    int action = random.nextInt(10);
+                    if (action < 5) {
+                        Booking booking = bookingManager.createBooking(users.get(random.nextInt(USER_COUNT)), jet,
+                                "A", "B", randomTripType(random), "2026-01-01", randomDay(random),
+                                randomLegHours(random), 0);
+                        if (booking != null) {
+                            created.incrementAndGet();
+                        }
+                    } else if (action < 7) {
+                        List<BookingRequest> batch = new ArrayList<>();
+                        for (int b = 0; b < 3; b++) {
+                            batch.add(new BookingRequest(users.get(random.nextInt(USER_COUNT)),
+                                    jets.get(random.nextInt(JET_COUNT)), "A", "B", randomTripType(random),
+                                    "2026-01-01", randomDay(random), randomLegHours(random), 0));
+                        }
+                        for (BookingResult result : bookingManager.createBookings(batch, random.nextBoolean())) {
+                            if (result.isSuccessful()) {
+                                created.incrementAndGet();
+                            }
+                        }
+                    } else if (action < 8) {
+                        // Take the jet in or out of service, or change its rate, while other threads
+                        // book it; every search must still see each jet exactly once
+                        if (random.nextBoolean()) {
+                            jet.setAvailable(!jet.isAvailable());
+                        } else {
+                            jet.setHourlyRate(RATES[random.nextInt(RATES.length)]);
+                        }
+                        check(jetInventory.findJets("Light Jet", 0, false).size() == JET_COUNT,
+                                "A type search lost or repeated a jet");
+                        check(jetInventory.findJetsByHourlyRate(0, Double.MAX_VALUE, true, 0).size() == JET_COUNT,
+                                "A rate search lost or repeated a jet");
+                        for (Jet available : jetInventory.findJets(null, 0, true)) {
+                            check(jets.contains(available), "A search returned a jet that is not in the inventory");
+                        }
+                    } else {
+                        // Several threads may pick the same booking; only one of them may cancel it
+                        List<Booking> jetBookings = bookingManager.findBookingsByJet(jet);
+                        if (!jetBookings.isEmpty()
+                                && bookingManager.cancelBooking(jetBookings.get(random.nextInt(jetBookings.size())))) {
+                            cancelled.incrementAndGet();
+                        }
+                    }
+                }
+                return null; // Makes this a Callable, which may throw the IOException
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        List<Booking> allBookings = bookingManager.getAllBookings();
+        check(allBookings.size() == created.get() - cancelled.get(),
+                "Expected " + (created.get() - cancelled.get()) + " bookings, found " + allBookings.size());
+        check(bookingManager.getBookingCount() == allBookings.size(), "Booking count does not match the bookings");
+
+        // No jet is booked twice for the same time, and each calendar holds exactly its jet's bookings
+        Set<Booking> indexedByJet = new HashSet<>();
+        for (Jet jet : jets) {
+            List<Booking> jetBookings = bookingManager.findBookingsByJet(jet);
+            jetBookings.sort(Comparator.comparing(Booking::getFlightStart));
+            for (int i = 1; i < jetBookings.size(); i++) {
+                Booking previous = jetBookings.get(i - 1);
+                Booking current = jetBookings.get(i);
+                check(!current.getFlightStart().isBefore(previous.getFlightEnd()),
+                        jet.getModel() + " is double-booked: " + previous.getConfirmationNumber()
+                                + " and " + current.getConfirmationNumber());
+            }
+            for (Booking booking : jetBookings) {
+                check(booking.getJet() == jet, booking.getConfirmationNumber() + " is indexed under the wrong jet");
+            }
+            check(jet.getCalendar().getBookedWindowCount() == jetBookings.size(),
+                    jet.getModel() + " has " + jet.getCalendar().getBookedWindowCount() + " booked windows but "
+                            + jetBookings.size() + " bookings");
+            indexedByJet.addAll(jetBookings);
+        }
+        check(indexedByJet.equals(new HashSet<>(allBookings)), "The jet index does not match the bookings");
+
+        // The inventory's indexes hold each jet under its final values
+        Set<Jet> inService = new HashSet<>();
+        for (Jet jet : jets) {
+            if (jet.isAvailable()) {
+                inService.add(jet);
+            }
+            check(jetInventory.findJetsByHourlyRate(jet.getHourlyRate(), jet.getHourlyRate(), true, 0).contains(jet),
+                    jet.getModel() + " is missing from the rate index");
+        }
+        check(new HashSet<>(jetInventory.findJets(null, 0, true)).equals(inService),
+                "The availability bitmap does not match the jets");
+
+        // Every user's index entry and booking list hold exactly that user's bookings
+        Set<Booking> indexedByUser = new HashSet<>();
+        for (User user : users) {
+            List<Booking> userBookings = bookingManager.findBookingsByUser(user);
+            for (Booking booking : userBookings) {
+                check(booking.getUser() == user, booking.getConfirmationNumber() + " is indexed under the wrong user");
+            }
+            check(new HashSet<>(user.getBookings()).equals(new HashSet<>(userBookings)),
+                    user.getUsername() + "'s booking list does not match the user index");
+            indexedByUser.addAll(userBookings);
+        }
+        check(indexedByUser.equals(new HashSet<>(allBookings)), "The user index does not match the bookings");
+
+        // The date index holds every booking once, under the day it flies
+        List<Booking> byDate = bookingManager.findBookingsByFlightDate(LocalDate.MIN, LocalDate.MAX);
+        check(byDate.size() == allBookings.size() && new HashSet<>(byDate).equals(new HashSet<>(allBookings)),
+                "The flight date index does not match the bookings");
+        for (Booking booking : allBookings) {
+            check(bookingManager.findBookingById(booking.getId()) == booking,
+                    booking.getConfirmationNumber() + " cannot be found by its ID");
+        }
+
+        System.out.println("Stress test passed: " + threads + " threads, " + created.get() + " bookings made, "
+                + cancelled.get() + " cancelled, " + allBookings.size() + " left.");
+    }
+
+    // Helper method that picks a flight day in January 2026
+    private static String randomDay(Random random) {
+        return String.format("2026-01-%02d", 1 + random.nextInt(DAY_COUNT));
+    }
+
+    // Helper method that picks how long one leg of the trip takes
+    private static int randomLegHours(Random random) {
+        return 1 + random.nextInt(MAX_LEG_HOURS);
+    }
+
+    // Helper method that picks a trip type
+    private static String randomTripType(Random random) {
+        return TRIP_TYPES[random.nextInt(TRIP_TYPES.length)];
+    }
+
+    // Helper method that stops the test with a message when a check fails
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Stress test failed: " + message);
+        }
+    }
+}
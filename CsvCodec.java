@@ -0,0 +1,159 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// This class reads and writes CSV as described in RFC 4180.
+// A field that holds a comma, a quote or a line break is written in double quotes,
+// with every quote inside it doubled; such a field may even span several lines of the file.
+// Rows are read straight from UTF-8 bytes into a reusable CsvRow, so reading allocates nothing.
+class CsvCodec {
+    private static final char REPLACEMENT = '\uFFFD';  // Stands in for bytes that are not valid UTF-8
+
+    // This reads the row that starts at position (and ends before limit) into row,
+    // and returns the position just after it, past its line break
+    public static int readRow(ByteBuffer in, int position, int limit, CsvRow row) {
+        row.clear();
+        int lineBreaks = 0;
+        boolean unterminated = false;
+        while (true) {
+            if (position < limit && in.get(position) == '"') {
+                // A quoted field: everything up to the closing quote, where "" stands for one quote
+                position++;
+                while (true) {
+                    if (position == limit) {
+                        unterminated = true;
+                        break;
+                    }
+                    byte b = in.get(position);
+                    if (b == '"') {
+                        if (position + 1 < limit && in.get(position + 1) == '"') {
+                            row.append('"');
+                            position += 2;
+                            continue;
+                        }
+                        position++;
+                        break;
+                    }
+                    if (b == '\n') {
+                        lineBreaks++;
+                    }
+                    position = appendChar(in, position, limit, row);
+                }
+            }
+            // An unquoted field, or whatever follows the closing quote, runs to the next comma or line break
+            while (position < limit) {
+                byte b = in.get(position);
+                if (b == ',' || b == '\n' || (b == '\r' && (position + 1 == limit || in.get(position + 1) == '\n'))) {
+                    break;
+                }
+                position = appendChar(in, position, limit, row);
+            }
+            row.endField();
+
+            if (position < limit && in.get(position) == ',') {
+                position++;
+                continue;
+            }
+            if (position < limit && in.get(position) == '\r') {
+                position++;
+            }
+            if (position < limit) {
+                position++;  // The '\n' that ends the row
+                lineBreaks++;
+            } else {
+                lineBreaks++;  // The last line of the file has no line break, but still counts
+            }
+            row.endRow(lineBreaks, unterminated);
+            return position;
+        }
+    }
+
+    // This returns the bytes from start to end as text, without the line break at the end.
+    // It is meant for error messages, so it allocates.
+    public static String rawText(ByteBuffer in, int start, int end) {
+        while (end > start && (in.get(end - 1) == '\n' || in.get(end - 1) == '\r')) {
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        in.get(start, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // This writes one row and ends it with a line break; a null field is written as an empty one
+    public static void writeRow(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(out, fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    // Helper method that writes one field, in quotes if it needs them
+    private static void writeField(Writer out, String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < field.length() && !needsQuotes; i++) {
+            char c = field.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    // Helper method that decodes the UTF-8 character at position into row, and returns where the next one starts.
+    // Commas, quotes and line breaks are single bytes that never occur inside a longer character.
+    private static int appendChar(ByteBuffer in, int position, int limit, CsvRow row) {
+        int b = in.get(position) & 0xFF;
+        if (b < 0x80) {
+            row.append((char) b);
+            return position + 1;
+        }
+        int extraBytes;
+        int codePoint;
+        if (b >= 0xF0 && b < 0xF8) {
+            extraBytes = 3;
+            codePoint = b & 0x07;
+        } else if (b >= 0xE0 && b < 0xF0) {
+            extraBytes = 2;
+            codePoint = b & 0x0F;
+        } else if (b >= 0xC0 && b < 0xE0) {
+            extraBytes = 1;
+            codePoint = b & 0x1F;
+        } else {
+            row.append(REPLACEMENT);
+            return position + 1;
+        }
+        for (int i = 1; i <= extraBytes; i++) {
+            int next = position + i < limit ? in.get(position + i) & 0xFF : 0;
+            if ((next & 0xC0) != 0x80) {
+                row.append(REPLACEMENT);
+                return position + i;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        if (codePoint > Character.MAX_CODE_POINT) {
+            row.append(REPLACEMENT);
+        } else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            row.append(Character.highSurrogate(codePoint));
+            row.append(Character.lowSurrogate(codePoint));
+        } else {
+            row.append((char) codePoint);
+        }
+        return position + extraBytes + 1;
+    }
+}
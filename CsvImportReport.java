@@ -0,0 +1,50 @@
+import java.util.*;
+
+// This class sums up a CSV import: how many lines were read and loaded, and which ones were skipped.
+// Only the first MAX_REPORTED_ERRORS skipped lines are kept, so a badly broken file cannot fill the memory.
+class CsvImportReport {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private long lineCount;           // Lines in the file, including blank ones and the header
+    private long loadedCount;         // Lines that were turned into a user or jet
+    private long errorCount;          // Lines that were skipped
+    private List<CsvLineError> errors; // The first skipped lines, in file order
+
+    // This is a constructor - it creates an empty report
+    public CsvImportReport() {
+        this.errors = new ArrayList<>();
+    }
+
+    // These "getter" methods allow other parts of the program to read the report
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public long getLoadedCount() {
+        return loadedCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public List<CsvLineError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    // These are used by CsvImporter while it fills in the report
+    void addLines(long lines) {
+        lineCount += lines;
+    }
+
+    void addLoaded() {
+        loadedCount++;
+    }
+
+    void addError(CsvLineError error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+        errorCount++;
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// This class reads a CSV file into the application as fast as the disk allows.
+// The file is memory-mapped and cut into chunks that end on a row boundary; the chunks are parsed
+// in parallel on the common ForkJoinPool (rows are read with CsvCodec), and the parsed values are then
+// handed over one at a time in file order, so the receiving manager does not have to be thread-safe.
+// Each chunk is handed over as soon as it and every chunk before it are parsed, and only a few chunks
+// are parsed ahead of that, so memory use depends on the chunk size and not on the file size.
+class CsvImporter {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;    // Smaller chunks are not worth a task
+    private static final long MAX_CHUNK_BYTES = 256L << 20;  // Keeps every mapping well under 2 GB
+    private static final int CHUNKS_PER_THREAD = 4;          // Spare chunks keep every thread busy to the end
+    private static final int CHUNKS_AHEAD = ForkJoinPool.getCommonPoolParallelism() + 1; // Parsed or parsing, not handed over
+
+    // This turns one row into a value. The row is reused for the next one, so it must not be kept.
+    // It throws an IllegalArgumentException, with the reason as message, for a row it cannot use.
+    interface RowParser<T> {
+        T parse(CsvRow row);
+    }
+
+    // This takes one parsed value. It returns null if the value was loaded, or the reason it was not.
+    interface RecordSink<T> {
+        String accept(T value);
+    }
+
+    // This imports a whole file and reports which lines were loaded and which were skipped.
+    // Blank lines are ignored, and so is the first row if the file has a header.
+    // Lines are numbered as in a text editor; a row that spans several lines has the number of its first one.
+    public static <T> CsvImportReport importFile(String filename, boolean hasHeader,
+                                                 RowParser<T> parser, RecordSink<T> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            int chunkCount = boundaries.length - 1;
+
+            // Hand the values over in file order, numbering lines across the chunks as we go.
+            // A chunk is dropped once handed over, and the next one is only started then.
+            CsvImportReport report = new CsvImportReport();
+            Deque<ForkJoinTask<ParsedChunk<T>>> parsing = new ArrayDeque<>();
+            int nextChunk = 0;
+            long firstLine = 0;
+            while (nextChunk < chunkCount || !parsing.isEmpty()) {
+                while (nextChunk < chunkCount && parsing.size() < CHUNKS_AHEAD) {
+                    long start = boundaries[nextChunk];
+                    long end = boundaries[nextChunk + 1];
+                    boolean skipFirstLine = hasHeader && start == 0;
+                    ForkJoinTask<ParsedChunk<T>> task =
+                            ForkJoinTask.adapt(() -> parseChunk(channel, start, end, skipFirstLine, parser));
+                    if (chunkCount > 1) {
+                        ForkJoinPool.commonPool().execute(task);
+                    }
+                    parsing.add(task);
+                    nextChunk++;
+                }
+                ParsedChunk<T> chunk;
+                try {
+                    chunk = chunkCount > 1 ? parsing.poll().join() : parsing.poll().invoke();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                chunk.handOver(firstLine, sink, report);
+                firstLine += chunk.lineCount;
+            }
+            report.addLines(firstLine);
+            return report;
+        }
+    }
+
+    // Helper method that cuts the file into chunks; every chunk but the last ends just after a row.
+    // A line break inside a quoted field does not end a row, so the file is first cut at even
+    // distances and the quotes before every cut are counted in parallel. An odd count means the
+    // cut is inside quotes, and the chunk then ends at the first line break after the closing quote.
+    private static long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = size / ((long) ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        chunkSize = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, chunkSize));
+        int cutCount = (int) ((size - 1) / chunkSize);
+
+        List<ForkJoinTask<Long>> quoteCounts = new ArrayList<>();
+        for (int cut = 0; cut < cutCount; cut++) {
+            long start = cut * chunkSize;
+            long end = start + chunkSize;
+            quoteCounts.add(ForkJoinPool.commonPool().submit(() -> countQuotes(channel, start, end)));
+        }
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long start = 0;
+        boolean inQuotes = false;
+        for (int cut = 1; cut <= cutCount; cut++) {
+            try {
+                inQuotes ^= (quoteCounts.get(cut - 1).join() & 1) == 1;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            long position = cut * chunkSize;
+            if (position < start) {
+                continue;  // The chunk before already reaches past this cut
+            }
+            long rowEnd = findRowEnd(channel, position, inQuotes, Math.min(size, start + MAX_CHUNK_BYTES));
+            if (rowEnd < 0) {
+                if (size - start > MAX_CHUNK_BYTES) {
+                    throw new IOException("A row is longer than " + MAX_CHUNK_BYTES + " bytes (is a quote missing?)");
+                }
+                break;  // The rest of the file is one row
+            }
+            start = rowEnd + 1;
+            if (start < size) {
+                boundaries.add(start);
+            }
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    // Helper method that counts the quote characters from start to end; it runs on a pool thread
+    private static long countQuotes(FileChannel channel, long start, long end) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long quotes = 0;
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    // Helper method that finds the first '\n' outside quotes from position onwards (before limit),
+    // or -1 if there is none
+    private static long findRowEnd(FileChannel channel, long position, boolean inQuotes, long limit) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+        while (position < limit) {
+            block.clear();
+            block.limit((int) Math.min(block.capacity(), limit - position));
+            int read = channel.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = block.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    // Helper method that parses one chunk; it runs on a pool thread
+    private static <T> ParsedChunk<T> parseChunk(FileChannel channel, long start, long end,
+                                                 boolean skipFirstLine, RowParser<T> parser) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ParsedChunk<T> chunk = new ParsedChunk<>();
+        CsvRow row = new CsvRow();
+        int position = 0;
+        int limit = buffer.limit();
+        while (position < limit) {
+            int rowStart = position;
+            long lineNumber = chunk.lineCount + 1;
+            position = CsvCodec.readRow(buffer, position, limit, row);
+            chunk.lineCount += row.getLineCount();
+            if (row.isBlank() || (skipFirstLine && rowStart == 0)) {
+                continue;
+            }
+            try {
+                if (row.isUnterminated()) {
+                    throw new IllegalArgumentException("A quoted value is never closed");
+                }
+                chunk.addValue(lineNumber, parser.parse(row));
+            } catch (IllegalArgumentException e) {
+                chunk.errors.add(new CsvLineError(lineNumber, CsvCodec.rawText(buffer, rowStart, position), e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    // The values and skipped rows of one chunk; line numbers count from 1 at the start of the chunk
+    private static class ParsedChunk<T> {
+        private List<T> values = new ArrayList<>();
+        private long[] valueLines = new long[16];
+        private List<CsvLineError> errors = new ArrayList<>();
+        private long lineCount;
+
+        private void addValue(long lineNumber, T value) {
+            if (values.size() == valueLines.length) {
+                valueLines = Arrays.copyOf(valueLines, valueLines.length * 2);
+            }
+            valueLines[values.size()] = lineNumber;
+            values.add(value);
+        }
+
+        // Gives the values to the sink and records the outcome of every line, in line order
+        private void handOver(long firstLine, RecordSink<T> sink, CsvImportReport report) {
+            int nextError = 0;
+            for (int i = 0; i < values.size(); i++) {
+                while (nextError < errors.size() && errors.get(nextError).getLineNumber() < valueLines[i]) {
+                    addError(firstLine, errors.get(nextError++), report);
+                }
+                String reason = sink.accept(values.get(i));
+                if (reason == null) {
+                    report.addLoaded();
+                } else {
+                    addError(firstLine, new CsvLineError(valueLines[i], null, reason), report);
+                }
+            }
+            while (nextError < errors.size()) {
+                addError(firstLine, errors.get(nextError++), report);
+            }
+        }
+
+        private static void addError(long firstLine, CsvLineError error, CsvImportReport report) {
+            report.addError(new CsvLineError(firstLine + error.getLineNumber(), error.getLine(), error.getReason()));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// This class is one line of a CSV file that could not be imported, and why
+class CsvLineError {
+    private long lineNumber;  // Which line of the file it was (the first line is 1)
+    private String line;      // The text of the line (null if it was parsed but then refused)
+    private String reason;    // Why it was skipped
+
+    // This is a constructor - it creates a new line error
+    public CsvLineError(long lineNumber, String line, String reason) {
+        this.lineNumber = lineNumber;
+        this.line = line;
+        this.reason = reason;
+    }
+
+    // These "getter" methods allow other parts of the program to read the error
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    // This converts the error into a readable text format
+    @Override
+    public String toString() {
+        return "Line " + lineNumber + ": " + reason + (line != null ? " (" + line + ")" : "");
+    }
+}
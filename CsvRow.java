@@ -0,0 +1,178 @@
+import java.util.*;
+
+// This class holds one row of a CSV file while it is read.
+// The same row, with the same buffers, is reused for every row of a file, so reading allocates nothing;
+// only asking for a field as a String creates one, and numbers are read straight from the characters.
+class CsvRow {
+    // Powers of ten that a double holds exactly, for the fast path of getDouble
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private char[] chars;        // The characters of every field, one after another (quotes already removed)
+    private int length;          // How many characters are in use
+    private int[] fieldEnds;     // Where each field ends in chars; a field starts where the one before it ends
+    private int fieldCount;      // How many fields the row has (a blank row has one empty field)
+    private int lineCount;       // How many lines of the file the row took up
+    private boolean unterminated; // Whether the row ended inside a quoted field
+
+    // This is a constructor - it creates an empty row
+    public CsvRow() {
+        this.chars = new char[256];
+        this.fieldEnds = new int[8];
+    }
+
+    // These "getter" methods allow other parts of the program to read the row
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public boolean isUnterminated() {
+        return unterminated;
+    }
+
+    // A row with nothing on it at all
+    public boolean isBlank() {
+        return fieldCount == 1 && length == 0;
+    }
+
+    // This returns a field exactly as it was written (without the quotes)
+    public String getString(int field) {
+        return new String(chars, start(field), fieldEnds[field] - start(field));
+    }
+
+    // This reads a field as a whole number; spaces around it are ignored
+    public int getInt(int field) {
+        int start = trimmedStart(field);
+        int end = trimmedEnd(field, start);
+        int position = start;
+        boolean negative = position < end && chars[position] == '-';
+        if (position < end && (chars[position] == '-' || chars[position] == '+')) {
+            position++;
+        }
+        if (position == end) {
+            throw new NumberFormatException("Not a whole number: \"" + getString(field) + "\"");
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = chars[position] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Not a whole number: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Not a whole number: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    // This reads a field as a decimal number; spaces around it are ignored.
+    // Plain numbers with up to 15 digits and a small exponent are converted right here, exactly;
+    // anything else (very long numbers, "Infinity", ...) is left to Double.parseDouble.
+    public double getDouble(int field) {
+        int start = trimmedStart(field);
+        int end = trimmedEnd(field, start);
+        int position = start;
+        boolean negative = position < end && chars[position] == '-';
+        if (position < end && (chars[position] == '-' || chars[position] == '+')) {
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenPoint = false;
+        for (; position < end; position++) {
+            char c = chars[position];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (position < end && digits > 0 && (chars[position] == 'e' || chars[position] == 'E')) {
+            position++;
+            boolean negativeExponent = position < end && chars[position] == '-';
+            if (position < end && (chars[position] == '-' || chars[position] == '+')) {
+                position++;
+            }
+            int written = 0;
+            int exponentDigits = 0;
+            for (; position < end && chars[position] >= '0' && chars[position] <= '9'; position++) {
+                written = Math.min(written * 10 + (chars[position] - '0'), 1000);
+                exponentDigits++;
+            }
+            exponent += exponentDigits == 0 ? 1000 : (negativeExponent ? -written : written);  // No digits: not fast
+        }
+
+        if (position == end && digits > 0 && digits <= 15 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+
+    // These are used by CsvCodec while it reads a row into this one
+    void clear() {
+        length = 0;
+        fieldCount = 0;
+        lineCount = 0;
+        unterminated = false;
+    }
+
+    void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = length;
+    }
+
+    void endRow(int lineCount, boolean unterminated) {
+        this.lineCount = lineCount;
+        this.unterminated = unterminated;
+    }
+
+    // Helper methods that find where a field starts and ends, with and without the spaces around it
+    private int start(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("The row has no field " + field);
+        }
+        return field == 0 ? 0 : fieldEnds[field - 1];
+    }
+
+    private int trimmedStart(int field) {
+        int start = start(field);
+        while (start < fieldEnds[field] && chars[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int field, int trimmedStart) {
+        int end = fieldEnds[field];
+        while (end > trimmedStart && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -1,39 +1,30 @@
 import java.io.*;
 
 public class FileManager {
-    public static boolean loadJetsFromCSV(JetInventory jetInventory) {
+    // Each row after the header is "model,type,seat capacity,hourly rate"; the rows are parsed
+    // in parallel (see CsvImporter) and the report lists the lines that were skipped
+    public static CsvImportReport loadJetsFromCSV(JetInventory jetInventory) throws IOException {
         String csvFile = "jets_data.csv";
 
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            // Skip header
-            String headerLine = br.readLine();
-
-            String line;
-            int jetCount = 0;
-            while ((line = br.readLine()) != null) {
-                String[] jetData = line.split(",");
-                if (jetData.length >= 4) {
-                    try {
-                        Jet jet = new Jet(
-                                jetData[0].trim(),                // model
-                                jetData[1].trim(),                // type
-                                Integer.parseInt(jetData[2].trim()),   // seat capacity
-                                true,                           // availability
-                                Double.parseDouble(jetData[3].trim())  // hourly rate
-                        );
-                        jetInventory.addJet(jet);
-                        jetCount++;
-                    } catch (NumberFormatException e) {
-                        System.out.println("Error parsing jet data: " + line);
-                    }
-                }
+        return CsvImporter.importFile(csvFile, true, jetData -> {
+            if (jetData.getFieldCount() < 4) {
+                throw new IllegalArgumentException("Expected 4 values (model, type, seat capacity, hourly rate) but found "
+                        + jetData.getFieldCount());
             }
-
-            System.out.println("CSV file successfully loaded. Total jets: " + jetCount);
-            return true;
-        } catch (IOException e) {
-            System.out.println("Error reading jet data from CSV: " + e.getMessage());
-            return false;
-        }
+            try {
+                return new Jet(
+                        jetData.getString(0).trim(),      // model
+                        jetData.getString(1).trim(),      // type
+                        jetData.getInt(2),                // seat capacity
+                        true,                           // availability
+                        jetData.getDouble(3)              // hourly rate
+                );
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Seat capacity and hourly rate must be numbers");
+            }
+        }, jet -> {
+            jetInventory.addJet(jet);
+            return null;
+        });
     }
 }
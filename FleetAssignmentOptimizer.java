@@ -0,0 +1,288 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// This class picks jets for a whole batch of trip requests at once, instead of one at a time.
+// Each request can go to any jet that is in service, has enough seats, fits the budget and is free
+// for the flight. Among all ways to match requests to jets, it first books as many requests as
+// possible, and then picks the cheapest match (or the one with the fewest empty seats).
+// This is a min-cost bipartite matching, solved with the Hungarian algorithm.
+//
+// Requests whose flight windows overlap, directly or through a chain of other requests, form one group,
+// and within a group a jet gets at most one trip. A long round trip can run into the next day, so a
+// group can span several dates. Groups never overlap in time, so no jet can be picked twice for the
+// same time, and the groups are solved in parallel on the common ForkJoinPool.
+class FleetAssignmentOptimizer {
+    public static final int MINIMIZE_COST = 0;         // Pay as little as possible in total
+    public static final int MINIMIZE_EMPTY_SEATS = 1;  // Leave as few seats empty as possible (then cheapest)
+
+    private JetInventory jetInventory;
+    private BookingManager bookingManager;
+
+    // This is a constructor - it creates an optimizer for the given fleet and bookings
+    public FleetAssignmentOptimizer(JetInventory jetInventory, BookingManager bookingManager) {
+        this.jetInventory = jetInventory;
+        this.bookingManager = bookingManager;
+    }
+
+    // This picks a jet for every request it can. The result has the same order as the requests,
+    // with null for requests no suitable jet is free for. Nothing is booked yet.
+    public List<Jet> assign(List<TripRequest> requests, int objective) {
+        // Work out every flight window; requests with a bad date or size cannot be assigned
+        List<Integer> valid = new ArrayList<>();
+        LocalDateTime[] starts = new LocalDateTime[requests.size()];
+        LocalDateTime[] ends = new LocalDateTime[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            TripRequest trip = requests.get(i);
+            if (flightDay(trip) != null && trip.getPassengers() > 0 && trip.getFlightDuration() > 0) {
+                starts[i] = Booking.windowStart(trip.getFlightDate());
+                ends[i] = Booking.windowEnd(trip.getFlightDate(), trip.getFlightDuration(), trip.getTripType());
+                valid.add(i);
+            }
+        }
+
+        // Split the batch into groups of overlapping windows: sorted by start, a request joins the
+        // current group as long as it starts before every window in the group so far has ended
+        valid.sort(Comparator.comparing((Integer i) -> starts[i]).thenComparing(i -> i));
+        List<List<Integer>> groups = new ArrayList<>();
+        LocalDateTime groupEnd = null;
+        for (int i : valid) {
+            if (groupEnd == null || !starts[i].isBefore(groupEnd)) {
+                groups.add(new ArrayList<>());
+                groupEnd = ends[i];
+            } else if (ends[i].isAfter(groupEnd)) {
+                groupEnd = ends[i];
+            }
+            groups.get(groups.size() - 1).add(i);
+        }
+
+        // Only jets in service are candidates; the inventory is read here, before going parallel
+        List<Jet> fleet = jetInventory.findJets(null, 1, true);
+
+        Jet[] assigned = new Jet[requests.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (List<Integer> group : groups) {
+            Runnable solveGroup = () -> solve(requests, group, starts, ends, fleet, objective, assigned);
+            if (groups.size() == 1) {
+                solveGroup.run();
+            } else {
+                tasks.add(ForkJoinPool.commonPool().submit(solveGroup));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return Arrays.asList(assigned);
+    }
+
+    // This picks the jets and books them through BookingManager in one batch (best effort).
+    // It returns one result per request, in the same order.
+    public List<BookingResult> assignAndBook(List<TripRequest> requests, int objective, String bookingDate) {
+        List<Jet> jets = assign(requests, objective);
+
+        List<BookingRequest> bookingRequests = new ArrayList<>();
+        List<Integer> requestNumbers = new ArrayList<>();
+        BookingResult[] results = new BookingResult[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            TripRequest trip = requests.get(i);
+            Jet jet = jets.get(i);
+            BookingRequest bookingRequest = new BookingRequest(trip.getUser(), jet, trip.getDeparture(),
+                    trip.getDestination(), trip.getTripType(), bookingDate, trip.getFlightDate(),
+                    trip.getFlightDuration(), jet != null ? trip.getBudget() - price(jet, trip) : 0.0);
+            if (jet == null) {
+                results[i] = new BookingResult(bookingRequest, "No suitable jet is free for this trip");
+            } else {
+                bookingRequests.add(bookingRequest);
+                requestNumbers.add(i);
+            }
+        }
+
+        List<BookingResult> booked = bookingManager.createBookings(bookingRequests);
+        for (int k = 0; k < booked.size(); k++) {
+            results[requestNumbers.get(k)] = booked.get(k);
+        }
+        return Arrays.asList(results);
+    }
+
+    // Helper method that matches one group of overlapping requests to jets and writes the choices into assigned
+    private static void solve(List<TripRequest> requests, List<Integer> group, LocalDateTime[] starts,
+                              LocalDateTime[] ends, List<Jet> fleet, int objective, Jet[] assigned) {
+        int n = group.size();
+
+        // A request never needs more than its n best jets: if it were matched to a worse one,
+        // one of those n would be left over by the other n - 1 requests and be at least as good.
+        // So while scanning the fleet each request only keeps its n best possible jets,
+        // with the worst of them on top of the queue so it can be pushed out.
+        Comparator<Candidate> better = objective == MINIMIZE_EMPTY_SEATS
+                ? Comparator.comparingInt((Candidate c) -> c.emptySeats).thenComparingDouble(c -> c.price)
+                : Comparator.comparingDouble((Candidate c) -> c.price);
+        List<PriorityQueue<Candidate>> candidates = new ArrayList<>();
+        for (int r = 0; r < n; r++) {
+            int request = group.get(r);
+            TripRequest trip = requests.get(request);
+            PriorityQueue<Candidate> best = new PriorityQueue<>(better.reversed());
+            for (Jet jet : fleet) {
+                if (jet.getSeatCapacity() < trip.getPassengers()) {
+                    continue;
+                }
+                double price = price(jet, trip);
+                if (price > trip.getBudget()) {
+                    continue;
+                }
+                Candidate candidate = new Candidate(jet, price, jet.getSeatCapacity() - trip.getPassengers());
+                if (best.size() == n && better.compare(candidate, best.peek()) >= 0) {
+                    continue; // Not better than the n kept so far; skip the calendar check
+                }
+                if (!jet.getCalendar().isFree(starts[request], ends[request])) {
+                    continue;
+                }
+                best.add(candidate);
+                if (best.size() > n) {
+                    best.poll();
+                }
+            }
+            candidates.add(best);
+        }
+
+        // Only jets kept by some request become columns
+        Map<Jet, Integer> columns = new HashMap<>();
+        List<Jet> columnJets = new ArrayList<>();
+        double maxPrice = 0;
+        for (PriorityQueue<Candidate> best : candidates) {
+            for (Candidate candidate : best) {
+                if (columns.putIfAbsent(candidate.jet, columnJets.size()) == null) {
+                    columnJets.add(candidate.jet);
+                }
+                maxPrice = Math.max(maxPrice, candidate.price);
+            }
+        }
+        int k = columnJets.size();
+
+        // Every request also gets its own "no jet" column. Its cost is higher than any full set of
+        // real matches, so the solver only uses it when a request cannot be served otherwise.
+        // Impossible pairs cost even more, so they are never picked at all.
+        double maxCost = objective == MINIMIZE_EMPTY_SEATS ? (maxPrice + 1) * (maxSeats(fleet) + 1) : maxPrice + 1;
+        double unassigned = maxCost * (n + 1);
+        double impossible = unassigned * 4;
+        double[][] cost = new double[n][k + n];
+        for (int r = 0; r < n; r++) {
+            Arrays.fill(cost[r], impossible);
+            cost[r][k + r] = unassigned;
+            for (Candidate candidate : candidates.get(r)) {
+                // With empty seats first, the price only chooses between equally full jets
+                cost[r][columns.get(candidate.jet)] = objective == MINIMIZE_EMPTY_SEATS
+                        ? candidate.emptySeats * (maxPrice + 1) + candidate.price
+                        : candidate.price;
+            }
+        }
+
+        int[] match = hungarian(cost);
+        for (int r = 0; r < n; r++) {
+            if (match[r] < k && cost[r][match[r]] < unassigned) {
+                assigned[group.get(r)] = columnJets.get(match[r]);
+            }
+        }
+    }
+
+    // Helper method that solves the assignment problem for a cost matrix with at least as many
+    // columns as rows, and returns the chosen column for each row. Runs in O(rows^2 * columns).
+    private static int[] hungarian(double[][] cost) {
+        int n = cost.length;
+        int m = n == 0 ? 0 : cost[0].length;
+        double[] u = new double[n + 1];      // Row potentials
+        double[] v = new double[m + 1];      // Column potentials
+        int[] rowOfColumn = new int[m + 1];  // Column -> row matched to it (1-based, 0 = none)
+        int[] previous = new int[m + 1];     // Column -> previous column on the augmenting path
+        double[] minSlack = new double[m + 1];
+        boolean[] visited = new boolean[m + 1];
+
+        for (int row = 1; row <= n; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[column] = true;
+                int currentRow = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!visited[j]) {
+                        double slack = cost[currentRow - 1][j - 1] - u[currentRow] - v[j];
+                        if (slack < minSlack[j]) {
+                            minSlack[j] = slack;
+                            previous[j] = column;
+                        }
+                        if (minSlack[j] < delta) {
+                            delta = minSlack[j];
+                            nextColumn = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (visited[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (rowOfColumn[column] != 0);
+
+            // Flip the augmenting path
+            do {
+                int previousColumn = previous[column];
+                rowOfColumn[column] = rowOfColumn[previousColumn];
+                column = previousColumn;
+            } while (column != 0);
+        }
+
+        int[] match = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] != 0) {
+                match[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return match;
+    }
+
+    // Helper method that prices a trip on a jet
+    private static double price(Jet jet, TripRequest trip) {
+        return PricingEngine.getInstance().quote(jet, trip.getTripType(), trip.getFlightDuration());
+    }
+
+    // Helper method that returns the most seats any jet in the fleet has
+    private static int maxSeats(List<Jet> fleet) {
+        int max = 0;
+        for (Jet jet : fleet) {
+            max = Math.max(max, jet.getSeatCapacity());
+        }
+        return max;
+    }
+
+    // One jet a request could fly on, with what it would cost and how many seats it would leave empty
+    private static class Candidate {
+        private final Jet jet;
+        private final double price;
+        private final int emptySeats;
+
+        private Candidate(Jet jet, double price, int emptySeats) {
+            this.jet = jet;
+            this.price = price;
+            this.emptySeats = emptySeats;
+        }
+    }
+
+    // Helper method that returns the day a request wants to fly, or null if the date is not valid
+    private static LocalDate flightDay(TripRequest trip) {
+        try {
+            return trip.getFlightDate() != null && trip.getTripType() != null ? LocalDate.parse(trip.getFlightDate()) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.*;
+
+// This is a stand-alone check that FleetAssignmentOptimizer picks the right jets for a batch of trips.
+// Run it with: java FleetAssignmentTest
+// Each check builds a small fleet where booking the trips one at a time (cheapest jet first) goes wrong
+// or gives a worse answer, and compares the optimizer's choice with the known best one.
+public class FleetAssignmentTest {
+    private static final double NO_LIMIT = 1_000_000_000.0;
+
+    public static void main(String[] args) throws Exception {
+        User user = new User("broker", "broker@example.com", "5550100");
+
+        // The cheapest jet for the small group is the only one big enough for the large group,
+        // so taking it for the small group first would leave the large group without a jet
+        JetInventory fleet = new JetInventory();
+        Jet bigCheap = addJet(fleet, "Big Cheap", 8, 1000.0);
+        Jet smallDear = addJet(fleet, "Small Dear", 4, 3000.0);
+        BookingManager bookingManager = new BookingManager();
+        FleetAssignmentOptimizer optimizer = new FleetAssignmentOptimizer(fleet, bookingManager);
+        List<TripRequest> trips = Arrays.asList(
+                trip(user, "2026-03-01", 3, 3, NO_LIMIT),
+                trip(user, "2026-03-01", 5, 6, NO_LIMIT));
+        List<Jet> assigned = optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_COST);
+        check(assigned.get(0) == smallDear && assigned.get(1) == bigCheap,
+                "Both groups should fly, the small one on the small jet: " + assigned);
+
+        // Trips on different days do not overlap, so both can have the cheap jet
+        trips = Arrays.asList(
+                trip(user, "2026-03-01", 3, 3, NO_LIMIT),
+                trip(user, "2026-03-02", 3, 3, NO_LIMIT));
+        assigned = optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_COST);
+        check(assigned.get(0) == bigCheap && assigned.get(1) == bigCheap,
+                "Trips on different days should both get the cheapest jet: " + assigned);
+
+        // A trip that no jet can carry, or that no jet is cheap enough for, gets no jet
+        trips = Arrays.asList(
+                trip(user, "2026-03-01", 3, 20, NO_LIMIT),
+                trip(user, "2026-03-01", 3, 2, 1.0));
+        assigned = optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_COST);
+        check(assigned.get(0) == null && assigned.get(1) == null,
+                "Trips that are too large or over budget should get no jet: " + assigned);
+
+        // The two objectives disagree: the small jet leaves no seat empty, the big one is cheaper
+        trips = Collections.singletonList(trip(user, "2026-03-01", 3, 4, NO_LIMIT));
+        check(optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_COST).get(0) == bigCheap,
+                "The cheapest objective should pick the cheaper jet");
+        check(optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_EMPTY_SEATS).get(0) == smallDear,
+                "The empty seats objective should pick the jet that is exactly full");
+
+        // Booking the batch claims the jets, so the same trips again find nothing free that day
+        trips = Arrays.asList(
+                trip(user, "2026-03-05", 3, 3, NO_LIMIT),
+                trip(user, "2026-03-05", 5, 6, NO_LIMIT));
+        List<BookingResult> results = optimizer.assignAndBook(trips, FleetAssignmentOptimizer.MINIMIZE_COST,
+                "2026-02-01");
+        for (BookingResult result : results) {
+            check(result.isSuccessful(), "The batch should be booked: " + result.getFailureReason());
+            check(bookingManager.containsBooking(result.getBooking()), "The booking should be held by the manager");
+        }
+        check(results.get(0).getBooking().getJet() == smallDear && results.get(1).getBooking().getJet() == bigCheap,
+                "The batch should be booked on the jets the optimizer picked");
+        results = optimizer.assignAndBook(trips, FleetAssignmentOptimizer.MINIMIZE_COST, "2026-02-01");
+        for (BookingResult result : results) {
+            check(!result.isSuccessful(), "Jets already booked that day should not be assigned again");
+        }
+        check(bookingManager.getBookingCount() == 2, "Only the first batch should be booked");
+
+        // A jet out of service is never picked
+        bigCheap.setAvailable(false);
+        trips = Collections.singletonList(trip(user, "2026-03-10", 3, 3, NO_LIMIT));
+        check(optimizer.assign(trips, FleetAssignmentOptimizer.MINIMIZE_COST).get(0) == smallDear,
+                "A jet out of service should not be picked");
+
+        System.out.println("Fleet assignment test passed.");
+    }
+
+    // Helper method that adds a jet with the given seats and hourly rate to the fleet
+    private static Jet addJet(JetInventory fleet, String model, int seats, double hourlyRate) {
+        Jet jet = new Jet(model, "Light Jet", seats, true, hourlyRate);
+        fleet.addJet(jet);
+        return jet;
+    }
+
+    // Helper method that makes a one-way trip request
+    private static TripRequest trip(User user, String flightDate, int hours, int passengers, double budget) {
+        return new TripRequest(user, "JFK", "LAX", "One-way", flightDate, hours, passengers, budget);
+    }
+
+    // Helper method that stops the test with a message when a check fails
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Fleet assignment test failed: " + message);
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 
 public class InputValidator {
@@ -41,6 +43,28 @@ public class InputValidator {
         return input;
     }
 
+    // Method to get a valid date (YYYY-MM-DD) from the user
+    public static String getDateInput(String prompt) {
+        do {
+            String input = getStringInput(prompt, false);
+            try {
+                LocalDate.parse(input);
+                return input;
+            } catch (DateTimeParseException e) {
+                UserInterface.printError("Invalid date. Please use the format YYYY-MM-DD.");
+            }
+        } while (true);
+    }
+
+    // Method to check that a route goes somewhere: the destination must not be the departure airport
+    public static boolean isValidRoute(String departure, String destination) {
+        if (departure.trim().equalsIgnoreCase(destination.trim())) {
+            UserInterface.printError("The destination must be different from the departure airport. Please try again.");
+            return false;
+        }
+        return true;
+    }
+
     // Method to get a valid email input from the user
     public static String getEmail() {
         String email;
@@ -3,11 +3,21 @@ import java.util.*;
 // This class represents a private jet that customers can rent
 class Jet {
     // These variables store information about each jet
+    private int id = -1;          // Stable ID given by the inventory; it never changes or gets reused
+    // Once the jet is added to an inventory, its values live in the inventory's
+    // column store instead, and this object becomes a view over one row of it
     private String model;         // The name/model of the jet (e.g., Gulfstream G650)
     private String type;          // The category of the jet (e.g., Ultra Long Range)
     private int seatCapacity;     // How many passengers can fit in the jet
     private boolean isAvailable;   // Whether the jet can be booked (true) or not (false)
     private double hourlyRate;    // How much it costs per hour to rent this jet
+    private AvailabilityCalendar calendar; // The time windows in which this jet is already booked
+
+    // These are filled in by JetInventory when the jet is added, so the inventory
+    // can keep its search indexes up to date whenever this jet changes
+    private JetInventory inventory; // The inventory this jet belongs to (null if none)
+    private JetColumnStore columns; // The inventory's column store holding this jet's values
+    private int slot = -1;          // This jet's row in the column store and the indexes
 
     // This is a constructor - it creates a new Jet with all its information
     public Jet(String model, String type, int seatCapacity, boolean isAvailable, double hourlyRate) {
@@ -16,55 +26,169 @@ class Jet {
         this.seatCapacity = seatCapacity;
         this.isAvailable = isAvailable;
         this.hourlyRate = hourlyRate;
+        this.calendar = new AvailabilityCalendar();
     }
 
     // These "getter" methods allow other parts of the program to access the jet's information
+    public int getId() {
+        return id;
+    }
     public String getModel() {
-        return model;
+        synchronized (lock()) {
+            return columns != null ? columns.getModel(slot) : model;
+        }
     }
     public String getType() {
-        return type;
+        synchronized (lock()) {
+            return columns != null ? columns.getType(slot) : type;
+        }
     }
     public int getSeatCapacity() {
-        return seatCapacity;
+        synchronized (lock()) {
+            return columns != null ? columns.getCapacity(slot) : seatCapacity;
+        }
     }
     public double getHourlyRate() {
-        return hourlyRate;
+        synchronized (lock()) {
+            return columns != null ? columns.getRate(slot) : hourlyRate;
+        }
+    }
+    public AvailabilityCalendar getCalendar() {
+        return calendar;
     }
 
     // These "setter" methods allow other parts of the program to change the jet's information
+    // Each one tells the inventory first, so its indexes never point at stale values,
+    // and holds the inventory's lock so no search sees the jet half-changed
     public void setModel(String model) {
-        this.model = model;
+        synchronized (lock()) {
+            beforeChange();
+            if (columns != null) {
+                columns.setModel(slot, model);
+            } else {
+                this.model = model;
+            }
+            afterChange();
+        }
     }
 
     public void setType(String type) {
-        this.type = type;
+        synchronized (lock()) {
+            beforeChange();
+            if (columns != null) {
+                columns.setType(slot, type);
+            } else {
+                this.type = type;
+            }
+            afterChange();
+        }
     }
 
     public void setSeatCapacity(int seatCapacity) {
-        this.seatCapacity = seatCapacity;
+        synchronized (lock()) {
+            beforeChange();
+            if (columns != null) {
+                columns.setCapacity(slot, seatCapacity);
+            } else {
+                this.seatCapacity = seatCapacity;
+            }
+            afterChange();
+        }
     }
 
+    // A jet that is not available is out of service and cannot be booked at all.
+    // Whether it is free on a certain date is answered by its calendar instead.
     public boolean isAvailable() {
-        return isAvailable;
+        synchronized (lock()) {
+            return columns != null ? columns.isAvailable(slot) : isAvailable;
+        }
     }
 
     public void setAvailable(boolean available) {
-        isAvailable = available;
+        synchronized (lock()) {
+            beforeChange();
+            if (columns != null) {
+                columns.setAvailable(slot, available);
+            } else {
+                isAvailable = available;
+            }
+            afterChange();
+        }
     }
 
     public void setHourlyRate(double hourlyRate) {
-        this.hourlyRate = hourlyRate;
+        synchronized (lock()) {
+            beforeChange();
+            if (columns != null) {
+                columns.setRate(slot, hourlyRate);
+            } else {
+                this.hourlyRate = hourlyRate;
+            }
+            afterChange();
+        }
+    }
+
+    // These are used by JetInventory to attach the jet to its indexes
+    JetInventory getInventory() {
+        return inventory;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    // Moves this jet's values into a new row of the column store
+    void attach(JetInventory inventory, JetColumnStore columns) {
+        this.inventory = inventory;
+        this.slot = columns.addRow(model, type, seatCapacity, isAvailable, hourlyRate);
+        this.columns = columns;
+    }
+
+    // Copies the values back out of the column store, so the jet still works on its own
+    void detach() {
+        this.model = columns.getModel(slot);
+        this.type = columns.getType(slot);
+        this.seatCapacity = columns.getCapacity(slot);
+        this.isAvailable = columns.isAvailable(slot);
+        this.hourlyRate = columns.getRate(slot);
+        columns.clearRow(slot);
+        this.inventory = null;
+        this.columns = null;
+        this.slot = -1;
+    }
+
+    // The inventory's lock guards its columns and indexes; a jet on its own uses its own lock
+    private Object lock() {
+        JetInventory owner = inventory;
+        return owner != null ? owner : this;
+    }
+
+    // Removes the jet from the inventory's indexes before one of its values changes
+    private void beforeChange() {
+        if (inventory != null) {
+            inventory.unindexJet(this);
+        }
+    }
+
+    // Puts the jet back into the inventory's indexes after the change
+    private void afterChange() {
+        if (inventory != null) {
+            inventory.indexJet(this);
+        }
     }
 
     // This converts the jet's information into a readable text format
     @Override
     public String toString() {
         return String.format("%-25s | %-20s | Capacity: %-4d | Available: %-5s | Rate: $%.2f/hour",
-                model,
-                type,
-                seatCapacity,
-                (isAvailable ? "Yes" : "No"),
-                hourlyRate);
+                getModel(),
+                getType(),
+                getSeatCapacity(),
+                (isAvailable() ? "Yes" : "No"),
+                getHourlyRate());
     }
 }
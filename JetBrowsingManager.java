@@ -2,6 +2,9 @@ import java.util.*;
 import java.util.Scanner;
 
 public class JetBrowsingManager {
+    // How many jets are shown at once when paging through search results
+    private static final int PAGE_SIZE = 10;
+
     private JetInventory jetInventory;
     private UserManager userManager;
     private BookingManager bookingManager;
@@ -18,13 +21,14 @@ public class JetBrowsingManager {
     // Displays the menu for browsing jets and handles user choices
     public void browseJetsMenu() {
         UserInterface.printHeader("===== Available Jets =====");
-        jetInventory.displayAllJets();
+        pageThroughJets(jetInventory.search(null, 0, null));
         UserInterface.printSubHeader("Options:");
         UserInterface.printMenuOption(1, "Filter Jets by Type");
         UserInterface.printMenuOption(2, "Filter Jets by Capacity");
         UserInterface.printMenuOption(3, "Filter Jets by Budget Range");
-        UserInterface.printMenuOption(4, "Book a Jet (requires login)");
-        UserInterface.printMenuOption(5, "Return to Main Menu");
+        UserInterface.printMenuOption(4, "Search Jets by Model Name");
+        UserInterface.printMenuOption(5, "Book a Jet (requires login)");
+        UserInterface.printMenuOption(6, "Return to Main Menu");
         UserInterface.printPrompt("Enter your choice: ");
 
         int choice = InputValidator.getIntInput();
@@ -40,11 +44,14 @@ public class JetBrowsingManager {
                 filterJetsByBudget();
                 break;
             case 4:
+                searchJetsByModel();
+                break;
+            case 5:
                 UserInterface.printInfo("Please login first to book a jet.");
                 UserMenuManager userMenu = new UserMenuManager(jetInventory, userManager, bookingManager);
                 userMenu.userLoginMenu();
                 break;
-            case 5:
+            case 6:
                 // Return to main menu
                 break;
             default:
@@ -52,49 +59,114 @@ public class JetBrowsingManager {
         }
     }
 
-    // Filters jets based on the selected type
-    public List<Jet> filterJetsByType() {
+    // Shows search results one page at a time, asking before each next page.
+    // Returns every jet shown so far, numbered in order, so one can be picked by its number.
+    public List<Jet> pageThroughJets(JetCursor cursor) {
+        List<Jet> shownJets = new ArrayList<>();
+        if (!cursor.hasNext()) {
+            UserInterface.printError("No jets found matching your criteria.");
+            return shownJets;
+        }
+
+        do {
+            List<Jet> page = cursor.nextPage(PAGE_SIZE);
+            jetInventory.displayJetPage(page, shownJets.size() + 1);
+            shownJets.addAll(page);
+        } while (cursor.hasNext() && InputValidator.getYesNoInput("Show the next " + PAGE_SIZE + " jets?"));
+
+        return shownJets;
+    }
+
+    // Asks the user to pick one of the jet types, and returns null for an invalid choice
+    public String chooseJetType() {
+        // The options come from the inventory's type dictionary, so new types show up automatically
+        List<String> jetTypes = jetInventory.getJetTypes();
         UserInterface.printSubHeader("Available jet types:");
-        UserInterface.printMenuOption(1, "Ultra Long Range");
-        UserInterface.printMenuOption(2, "Large Jet");
-        UserInterface.printMenuOption(3, "Super Mid-Size");
-        UserInterface.printMenuOption(4, "Mid-Size");
-        UserInterface.printMenuOption(5, "Light Jet");
+        for (int i = 0; i < jetTypes.size(); i++) {
+            UserInterface.printMenuOption(i + 1, jetTypes.get(i));
+        }
         UserInterface.printPrompt("Select jet type (enter the number): ");
 
         int type_jet = InputValidator.getIntInput();
-        String type = null;
-
-        switch (type_jet) {
-            case 1:
-                type = "Ultra Long Range";
-                break;
-            case 2:
-                type = "Large Jet";
-                break;
-            case 3:
-                type = "Super Mid-Size";
-                break;
-            case 4:
-                type = "Mid-Size";
-                break;
-            case 5:
-                type = "Light Jet";
-                break;
-            default:
-                UserInterface.printError("Invalid choice. Returning to main menu.");
-                return java.util.Collections.emptyList(); // Return empty list if invalid choice
+        if (type_jet < 1 || type_jet > jetTypes.size()) {
+            UserInterface.printError("Invalid choice. Returning to main menu.");
+            return null;
         }
+        return jetTypes.get(type_jet - 1);
+    }
 
-        List<Jet> filteredJets = jetInventory.findJets(type, 0, null);
+    // Filters jets based on the selected type
+    public List<Jet> filterJetsByType() {
+        String type = chooseJetType();
+        if (type == null) {
+            return java.util.Collections.emptyList(); // Return empty list if invalid choice
+        }
 
         UserInterface.printHeader("Filtered Jets");
-        if (filteredJets.isEmpty()) {
+        return pageThroughJets(jetInventory.search(type, 0, null));
+    }
+
+    // Shows the cheapest available jets of the selected type
+    public List<Jet> showCheapestJetsOfType() {
+        String type = chooseJetType();
+        if (type == null) {
+            return java.util.Collections.emptyList(); // Return empty list if invalid choice
+        }
+
+        List<Jet> cheapestJets = jetInventory.search(type, 0, true)
+                .topK(PAGE_SIZE, Comparator.comparingDouble(Jet::getHourlyRate));
+
+        UserInterface.printHeader(PAGE_SIZE + " Cheapest Available " + type + " Jets");
+        if (cheapestJets.isEmpty()) {
             UserInterface.printError("No jets found matching your criteria.");
         } else {
-            jetInventory.displayFilteredJets(filteredJets);
+            jetInventory.displayFilteredJets(cheapestJets);
         }
-        return filteredJets;
+        return cheapestJets;
+    }
+
+    // Finds jets by (part of) their model name, forgiving small typos
+    public List<Jet> searchJetsByModel() {
+        String query = InputValidator.getStringInput("\nEnter the jet model to search for: ", false);
+        List<Jet> foundJets = jetInventory.searchByModel(query, PAGE_SIZE);
+
+        UserInterface.printHeader("Jets Matching \"" + query + "\"");
+        if (foundJets.isEmpty()) {
+            UserInterface.printError("No jets found matching your criteria.");
+        } else {
+            jetInventory.displayFilteredJets(foundJets);
+        }
+        return foundJets;
+    }
+
+    // Recommends the cheapest available jet for a group within a budget, and lists the best-value jets
+    public List<Jet> recommendJet() {
+        int passengers;
+        do {
+            UserInterface.printPrompt("\nHow many passengers are flying? ");
+            passengers = InputValidator.getIntInput();
+            if (passengers <= 0) {
+                UserInterface.printError("Please enter at least 1 passenger.");
+            }
+        } while (passengers <= 0);
+
+        UserInterface.printPrompt("Enter your maximum hourly rate: $");
+        double maxRate = InputValidator.getDoubleInput();
+
+        Jet recommended = jetInventory.recommendJet(passengers, maxRate);
+        if (recommended == null) {
+            UserInterface.printError("No available jet seats " + passengers + " passengers for $"
+                    + String.format("%.2f", maxRate) + "/hour or less.");
+            UserInterface.printInfo("Best-value jets (each is the cheapest with at least its seats):");
+            List<Jet> bestValueJets = jetInventory.getBestValueJets();
+            jetInventory.displayFilteredJets(bestValueJets);
+            return bestValueJets;
+        }
+
+        UserInterface.printHeader("Recommended Jet");
+        List<Jet> recommendation = java.util.Collections.singletonList(recommended);
+        jetInventory.displayFilteredJets(recommendation);
+        return recommendation;
     }
 
     // Filters jets based on the minimum seat capacity
@@ -113,11 +185,8 @@ public class JetBrowsingManager {
             }
         }
 
-        List<Jet> filteredJets = jetInventory.findJets(null, minCapacity, null);
-
         UserInterface.printHeader("Filtered Jets");
-        jetInventory.displayFilteredJets(filteredJets);
-        return filteredJets;
+        return pageThroughJets(jetInventory.search(null, minCapacity, null));
     }
 
     // Filters jets based on the user's budget range
@@ -136,15 +205,8 @@ public class JetBrowsingManager {
             maxBudget = temp;
         }
 
-        List<Jet> budgetJets = new ArrayList<>();
-        for (Jet jet : jetInventory.findJets(null, 0, null)) {
-            if (jet.getHourlyRate() >= minBudget && jet.getHourlyRate() <= maxBudget) {
-                budgetJets.add(jet);
-            }
-        }
-
+        // Ask the inventory's rate index directly, cheapest jets first
         UserInterface.printHeader("Jets in Budget Range $" + minBudget + " - $" + maxBudget + " per hour");
-        jetInventory.displayFilteredJets(budgetJets);
-        return budgetJets;
+        return pageThroughJets(jetInventory.searchByHourlyRate(minBudget, maxBudget, true));
     }
 }
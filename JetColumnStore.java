@@ -0,0 +1,146 @@
+import java.util.*;
+
+// This class stores the values of every jet in the inventory column by column.
+// Instead of one object per jet, each value has its own array, and a jet is just a row number.
+// Keeping each column in one primitive array lets a search scan it in a tight loop.
+class JetColumnStore {
+    private static final int INITIAL_ROWS = 16;
+
+    private String[] models;      // Row -> model name
+    private int[] typeCodes;      // Row -> code of the jet type (see the inventory's JetTypeDictionary)
+    private int[] capacities;     // Row -> seat capacity
+    private double[] rates;       // Row -> hourly rate
+    private BitSet availability;  // Rows of jets that are available
+    private BitSet liveRows;      // Rows that still belong to a jet in the inventory
+    private int rowCount;         // How many rows have been handed out so far
+
+    private JetTypeDictionary typeDictionary;  // Turns type names into codes and back
+
+    // This is a constructor - it creates an empty column store that encodes types with the given dictionary
+    public JetColumnStore(JetTypeDictionary typeDictionary) {
+        this.models = new String[INITIAL_ROWS];
+        this.typeCodes = new int[INITIAL_ROWS];
+        this.capacities = new int[INITIAL_ROWS];
+        this.rates = new double[INITIAL_ROWS];
+        this.availability = new BitSet();
+        this.liveRows = new BitSet();
+        this.rowCount = 0;
+        this.typeDictionary = typeDictionary;
+    }
+
+    // This adds a new row and returns its number
+    public int addRow(String model, String type, int capacity, boolean available, double rate) {
+        if (rowCount == capacities.length) {
+            int newLength = capacities.length * 2;
+            models = Arrays.copyOf(models, newLength);
+            typeCodes = Arrays.copyOf(typeCodes, newLength);
+            capacities = Arrays.copyOf(capacities, newLength);
+            rates = Arrays.copyOf(rates, newLength);
+        }
+        int row = rowCount++;
+        models[row] = model;
+        typeCodes[row] = typeDictionary.intern(type);
+        capacities[row] = capacity;
+        rates[row] = rate;
+        availability.set(row, available);
+        liveRows.set(row);
+        return row;
+    }
+
+    // This marks a row as no longer used (row numbers are never handed out twice)
+    public void clearRow(int row) {
+        models[row] = null;
+        availability.clear(row);
+        liveRows.clear(row);
+    }
+
+    // These "getter" and "setter" methods read and write a single value of a row
+    public String getModel(int row) {
+        return models[row];
+    }
+
+    public void setModel(int row, String model) {
+        models[row] = model;
+    }
+
+    public String getType(int row) {
+        return typeDictionary.getName(typeCodes[row]);
+    }
+
+    public void setType(int row, String type) {
+        typeCodes[row] = typeDictionary.intern(type);
+    }
+
+    public int getTypeCode(int row) {
+        return typeCodes[row];
+    }
+
+    public int getCapacity(int row) {
+        return capacities[row];
+    }
+
+    public void setCapacity(int row, int capacity) {
+        capacities[row] = capacity;
+    }
+
+    public double getRate(int row) {
+        return rates[row];
+    }
+
+    public void setRate(int row, double rate) {
+        rates[row] = rate;
+    }
+
+    public boolean isAvailable(int row) {
+        return availability.get(row);
+    }
+
+    public void setAvailable(int row, boolean available) {
+        availability.set(row, available);
+    }
+
+    // These give the inventory read access to the row bitmaps
+    public BitSet getAvailability() {
+        return availability;
+    }
+
+    public BitSet getLiveRows() {
+        return liveRows;
+    }
+
+    // This scans the columns and returns the rows matching all the criteria.
+    // A typeCode of -1 means any type. Rows are checked 64 at a time, one word of the result per block,
+    // and blocks with no live (or no available) rows are skipped without reading the columns.
+    public BitSet scan(int typeCode, int minCapacity, boolean mustBeAvailable) {
+        long[] liveWords = liveRows.toLongArray();
+        long[] availableWords = mustBeAvailable ? availability.toLongArray() : null;
+        long[] resultWords = new long[liveWords.length];
+
+        for (int word = 0; word < liveWords.length; word++) {
+            long mask = liveWords[word];
+            if (availableWords != null) {
+                mask &= word < availableWords.length ? availableWords[word] : 0L;
+            }
+            if (mask == 0L) {
+                continue;
+            }
+
+            int start = word << 6;
+            int end = Math.min(start + 64, rowCount);
+            long matches = 0L;
+            if (typeCode < 0) {
+                for (int row = start; row < end; row++) {
+                    matches |= (capacities[row] >= minCapacity ? 1L : 0L) << (row - start);
+                }
+            } else {
+                for (int row = start; row < end; row++) {
+                    boolean match = capacities[row] >= minCapacity & typeCodes[row] == typeCode;
+                    matches |= (match ? 1L : 0L) << (row - start);
+                }
+            }
+            resultWords[word] = matches & mask;
+        }
+
+        return BitSet.valueOf(resultWords);
+    }
+}
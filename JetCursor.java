@@ -0,0 +1,96 @@
+import java.util.*;
+import java.util.function.Predicate;
+
+// This class walks through the results of a jet search one jet at a time.
+// Nothing is collected up front: each call to next() finds the next matching jet,
+// so a caller that only wants one page (or the best few jets) never builds the full result list.
+class JetCursor implements Iterator<Jet> {
+    private Iterator<Jet> source;   // The candidate jets, in result order
+    private Predicate<Jet> filter;  // The condition a candidate must pass to be returned
+    private Jet nextJet;            // The next matching jet, found ahead of time by hasNext()
+
+    // This is a constructor - it creates a cursor over the candidates that pass the filter
+    public JetCursor(Iterator<Jet> source, Predicate<Jet> filter) {
+        this.source = source;
+        this.filter = filter;
+    }
+
+    // This checks whether there is another matching jet
+    @Override
+    public boolean hasNext() {
+        while (nextJet == null && source.hasNext()) {
+            Jet candidate = source.next();
+            if (filter.test(candidate)) {
+                nextJet = candidate;
+            }
+        }
+        return nextJet != null;
+    }
+
+    // This returns the next matching jet
+    @Override
+    public Jet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Jet jet = nextJet;
+        nextJet = null;
+        return jet;
+    }
+
+    // This skips over the given number of matching jets
+    public void skip(int count) {
+        for (int i = 0; i < count && hasNext(); i++) {
+            next();
+        }
+    }
+
+    // This returns the next pageSize matching jets (fewer if the results run out)
+    public List<Jet> nextPage(int pageSize) {
+        List<Jet> page = new ArrayList<>();
+        while (page.size() < pageSize && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    // This returns the page that starts offset jets after the current position
+    public List<Jet> page(int offset, int pageSize) {
+        skip(offset);
+        return nextPage(pageSize);
+    }
+
+    // This returns the k best remaining jets according to the given order (best first).
+    // It keeps only k jets in a heap while walking the results, so memory stays O(k).
+    public List<Jet> topK(int k, Comparator<Jet> order) {
+        List<Jet> best = new ArrayList<>();
+        if (k <= 0) {
+            return best;
+        }
+
+        // The heap keeps the worst of the current top k on top, ready to be replaced
+        PriorityQueue<Jet> heap = new PriorityQueue<>(k, order.reversed());
+        while (hasNext()) {
+            Jet jet = next();
+            if (heap.size() < k) {
+                heap.add(jet);
+            } else if (order.compare(jet, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(jet);
+            }
+        }
+
+        best.addAll(heap);
+        best.sort(order);
+        return best;
+    }
+
+    // This collects every remaining matching jet into a list
+    public List<Jet> toList() {
+        List<Jet> jets = new ArrayList<>();
+        while (hasNext()) {
+            jets.add(next());
+        }
+        return jets;
+    }
+}
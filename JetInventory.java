@@ -1,6 +1,10 @@
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.*;
 
 // This class maintains a collection of all jets available in the rental system
+// Every method that reads or changes the indexes locks the inventory, and so do the setters of its jets,
+// so jets can be searched, booked and edited from several threads at once
 class JetInventory {
     // ANSI escape codes for text styles
     private static final String RESET = "\u001B[0m";
@@ -18,43 +22,347 @@ class JetInventory {
     private static final String FG_BRIGHT_MAGENTA = "\u001B[95m";
 
 
-    // A list that holds all jets in the inventory
-    private List<Jet> availableJets;
+    // A map that holds all jets in the inventory by their ID, in the order they were added
+    private Map<Integer, Jet> jetsById;
+    private int nextJetId;  // The ID the next new jet will get
+
+    // When a query matches more than 1 in SCAN_THRESHOLD jets, scanning the columns is cheaper than the indexes
+    private static final int SCAN_THRESHOLD = 8;
+
+    // The jets' values are kept column by column, and every jet gets a slot (its row in the columns).
+    // The indexes below store slot numbers in bitmaps, so a query can combine them without touching
+    // every Jet object.
+    private JetColumnStore columns;                   // Column-by-column copy of every jet's values
+    private List<Jet> jetsBySlot;                     // Slot number -> jet (null once removed)
+    private BitSet liveSlots;                         // Slots that still hold a jet
+    private JetTypeDictionary typeDictionary;         // Every jet type, each with a small code
+    private List<BitSet> typeBuckets;                 // Type code -> slots of that type
+    private TreeMap<Integer, BitSet> capacityIndex;   // Seat capacity -> slots with that capacity
+    private BitSet availabilityBitmap;                // Slots of jets that are available
+    private TreeMap<Double, BitSet> rateIndex;        // Hourly rate -> slots with that rate, kept sorted
+    private ModelSearchIndex modelIndex;              // Prefix tree over model names
+    private JetSkyline skyline;                       // Best-value available jets by capacity and rate
+    private BookingJournal journal;                   // Where addNewJet and deleteJet write their changes (null if none)
 
     // This is a constructor - it creates a new empty inventory
     public JetInventory() {
-        this.availableJets = new ArrayList<>();
+        this.jetsById = new LinkedHashMap<>();
+        this.nextJetId = 1;
+        this.typeDictionary = new JetTypeDictionary();
+        this.columns = new JetColumnStore(typeDictionary);
+        this.jetsBySlot = new ArrayList<>();
+        this.liveSlots = columns.getLiveRows();
+        this.typeBuckets = new ArrayList<>();
+        this.capacityIndex = new TreeMap<>();
+        this.availabilityBitmap = columns.getAvailability();
+        this.rateIndex = new TreeMap<>();
+        this.modelIndex = new ModelSearchIndex();
+        this.skyline = new JetSkyline();
     }
 
     // This adds a new jet to the inventory
-    public void addJet(Jet jet) {
-        availableJets.add(jet);
+    // A jet without an ID gets the next free one; a jet that already has an ID keeps it
+    public synchronized void addJet(Jet jet) {
+        if (jet.getInventory() != null) {
+            throw new IllegalArgumentException("Jet '" + jet.getModel() + "' already belongs to an inventory");
+        }
+        if (jet.getId() < 0) {
+            jet.setId(nextJetId);
+        } else if (jetsById.containsKey(jet.getId())) {
+            throw new IllegalArgumentException("Jet ID " + jet.getId() + " is already in use");
+        }
+        nextJetId = Math.max(nextJetId, jet.getId() + 1);
+
+        jet.attach(this, columns);
+        jetsBySlot.add(jet);
+        indexJet(jet);
+        jetsById.put(jet.getId(), jet);
     }
 
 
+    // This makes addNewJet and deleteJet write every change to the given journal from now on
+    public synchronized void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    // This adds a jet entered by an admin. Unlike addJet, which loads jets that are already saved,
+    // it writes the jet to the journal first, so bookings made on it are not lost in a crash.
+    // If that fails, the jet is not added.
+    public synchronized void addNewJet(Jet jet) throws IOException {
+        if (jet.getInventory() != null) {
+            throw new IllegalArgumentException("Jet '" + jet.getModel() + "' already belongs to an inventory");
+        }
+        if (journal != null) {
+            if (jet.getId() < 0) {
+                jet.setId(nextJetId); // The record needs the ID the jet is about to get
+            }
+            journal.logJetAdd(jet, getCruiseKnots(jet.getType()));
+        }
+        addJet(jet);
+    }
+
+    // This deletes a jet for an admin, writing the deletion to the journal first,
+    // and returns it (or null if there is none). If writing fails, the jet stays.
+    public synchronized Jet deleteJet(int id) throws IOException {
+        if (!jetsById.containsKey(id)) {
+            return null;
+        }
+        if (journal != null) {
+            journal.logJetRemove(id);
+        }
+        return removeJetById(id);
+    }
+
     // This removes a jet from the inventory
     public boolean removeJet(Jet jet) {
-        return availableJets.remove(jet);
+        if (jet == null || jet.getInventory() != this) {
+            return false;
+        }
+        return removeJetById(jet.getId()) != null;
+    }
+
+    // This removes the jet with the given ID in O(1) and returns it (or null if there is none)
+    public synchronized Jet removeJetById(int id) {
+        Jet jet = jetsById.remove(id);
+        if (jet != null) {
+            unindexJet(jet);
+            jetsBySlot.set(jet.getSlot(), null);
+            jet.detach();
+        }
+        return jet;
+    }
+
+    // This finds the jet with the given ID in O(1) (or returns null if there is none)
+    public synchronized Jet getJetById(int id) {
+        return jetsById.get(id);
     }
 
     // This finds jets that match specific criteria
     public List<Jet> findJets(String type, int minCapacity, Boolean mustBeAvailable) { // changed this
-        List<Jet> matchingJets = new ArrayList<>();
+        return search(type, minCapacity, mustBeAvailable).toList();
+    }
 
-        for (Jet jet : availableJets) {
-            // Check if the jet meets all the specified criteria
-            boolean typeMatches = type == null || type.isEmpty() || jet.getType().equalsIgnoreCase(type);
-            boolean capacityMatches = jet.getSeatCapacity() >= minCapacity;
-            boolean availabilityMatches = mustBeAvailable == null || !mustBeAvailable || jet.isAvailable();
+    // This finds jets that match the criteria and are also free for the whole window [from, to)
+    public List<Jet> findJets(String type, int minCapacity, Boolean mustBeAvailable,
+                              LocalDateTime from, LocalDateTime to) {
+        return search(type, minCapacity, mustBeAvailable, from, to).toList();
+    }
 
-            if (typeMatches && capacityMatches && availabilityMatches) {
-                matchingJets.add(jet);
+    // This starts a search for jets that match specific criteria.
+    // The returned cursor finds the matches one at a time, in the order the jets were added.
+    public synchronized JetCursor search(String type, int minCapacity, Boolean mustBeAvailable) {
+        boolean filterByType = type != null && !type.isEmpty();
+        boolean filterByAvailability = mustBeAvailable != null && mustBeAvailable;
+
+        // Jet types are compared by their dictionary code, never by name
+        int typeCode = -1;
+        BitSet typeSlots = null;
+        if (filterByType) {
+            typeCode = typeDictionary.lookup(type);
+            if (typeCode < 0 || typeCode >= typeBuckets.size()) {
+                return new JetCursor(Collections.emptyIterator(), jet -> false); // No jet of this type exists
+            }
+            typeSlots = typeBuckets.get(typeCode);
+        }
+
+        // Query planner: start from whichever index leaves the fewest candidates,
+        // then check the remaining conditions on those candidates only
+        BitSet candidates = liveSlots;
+        int candidateCount = jetsById.size();
+
+        if (typeSlots != null && typeSlots.cardinality() < candidateCount) {
+            candidates = typeSlots;
+            candidateCount = typeSlots.cardinality();
+        }
+        if (filterByAvailability && availabilityBitmap.cardinality() < candidateCount) {
+            candidates = availabilityBitmap;
+            candidateCount = availabilityBitmap.cardinality();
+        }
+        SortedMap<Integer, BitSet> capacityRange = capacityIndex.tailMap(minCapacity);
+        if (capacityRange.size() < capacityIndex.size()) {
+            int capacityCount = 0;
+            for (BitSet slots : capacityRange.values()) {
+                capacityCount += slots.cardinality();
+            }
+            if (capacityCount < candidateCount) {
+                candidates = new BitSet();
+                candidateCount = capacityCount;
+                for (BitSet slots : capacityRange.values()) {
+                    candidates.or(slots);
+                }
             }
         }
 
+        // Even the best index still leaves a large share of the fleet, so scan the columns instead
+        if ((long) candidateCount * SCAN_THRESHOLD > jetsById.size()) {
+            BitSet matches = columns.scan(typeCode, minCapacity, filterByAvailability);
+            return new JetCursor(jetsInSlots(Collections.singletonList(matches)), jet -> true);
+        }
+
+        // Check if each candidate meets all the specified criteria
+        final BitSet typeMatches = typeSlots;
+        return new JetCursor(jetsInSlots(Collections.singletonList(candidates)), jet ->
+                stillMatches(jet, typeMatches, minCapacity, filterByAvailability));
+    }
+
+    // Helper method that checks a candidate against the live indexes while a search cursor is walking.
+    // A jet removed since the search started no longer matches anything.
+    private synchronized boolean stillMatches(Jet jet, BitSet typeMatches, int minCapacity,
+                                              boolean mustBeAvailable) {
+        int slot = jet.getSlot();
+        return slot >= 0
+                && (typeMatches == null || typeMatches.get(slot))
+                && columns.getCapacity(slot) >= minCapacity
+                && (!mustBeAvailable || availabilityBitmap.get(slot));
+    }
+
+    // This starts a search for jets that match the criteria and are also free for the whole window [from, to)
+    public JetCursor search(String type, int minCapacity, Boolean mustBeAvailable,
+                            LocalDateTime from, LocalDateTime to) {
+        return new JetCursor(search(type, minCapacity, mustBeAvailable),
+                jet -> jet.getCalendar().isFree(from, to));
+    }
+
+    // This finds jets whose hourly rate is between minRate and maxRate (both inclusive).
+    // Results come out sorted by rate, cheapest first when ascending is true.
+    // A limit of 0 or less returns every match.
+    public List<Jet> findJetsByHourlyRate(double minRate, double maxRate, boolean ascending, int limit) {
+        JetCursor cursor = searchByHourlyRate(minRate, maxRate, ascending);
+        return limit > 0 ? cursor.nextPage(limit) : cursor.toList();
+    }
+
+    // This starts a search for jets whose hourly rate is between minRate and maxRate (both inclusive),
+    // walking the sorted rate index, so the jets come out in rate order without being sorted
+    public synchronized JetCursor searchByHourlyRate(double minRate, double maxRate, boolean ascending) {
+        if (minRate > maxRate) {
+            return new JetCursor(Collections.emptyIterator(), jet -> false);
+        }
+
+        NavigableMap<Double, BitSet> range = rateIndex.subMap(minRate, true, maxRate, true);
+        if (!ascending) {
+            range = range.descendingMap();
+        }
+        return new JetCursor(jetsInSlots(range.values()), jet -> true);
+    }
+
+    // This finds up to limit jets by model name. Models starting with the query come first,
+    // followed by models that start with something a few typos away from it
+    // (so "gulfstrem g65" still finds "Gulfstream G650").
+    public synchronized List<Jet> searchByModel(String query, int limit) {
+        Set<Integer> slots = new LinkedHashSet<>(modelIndex.findByPrefix(query, limit));
+        if (slots.size() < limit) {
+            slots.addAll(modelIndex.findSimilar(query, allowedTypos(query), limit));
+        }
+
+        List<Jet> matchingJets = new ArrayList<>();
+        for (int slot : slots) {
+            if (matchingJets.size() >= limit) {
+                break;
+            }
+            matchingJets.add(jetsBySlot.get(slot));
+        }
         return matchingJets;
     }
 
+    // Helper method that decides how many typos a model search forgives: none for very short queries
+    private static int allowedTypos(String query) {
+        int length = query.trim().length();
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 7 ? 1 : 2;
+    }
+
+    // Helper method that lazily turns slot bitmaps into jets, one bitmap after the other.
+    // The bitmaps are copied first, so a jet changed, added or removed while the search is open
+    // cannot break it; slots of jets removed in the meantime are skipped.
+    private Iterator<Jet> jetsInSlots(Iterable<BitSet> bitmaps) {
+        List<BitSet> copies = new ArrayList<>();
+        for (BitSet bitmap : bitmaps) {
+            copies.add((BitSet) bitmap.clone());
+        }
+        Iterator<BitSet> bitmapIterator = copies.iterator();
+        return new Iterator<Jet>() {
+            private BitSet current;
+            private int slot = -1;
+            private Jet nextJet;
+
+            @Override
+            public boolean hasNext() {
+                while (nextJet == null) {
+                    if (current != null) {
+                        slot = current.nextSetBit(slot + 1);
+                    }
+                    if (current == null || slot < 0) {
+                        if (!bitmapIterator.hasNext()) {
+                            return false;
+                        }
+                        current = bitmapIterator.next();
+                        slot = -1;
+                        continue;
+                    }
+                    nextJet = jetInSlot(slot);
+                }
+                return true;
+            }
+
+            @Override
+            public Jet next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Jet jet = nextJet;
+                nextJet = null;
+                return jet;
+            }
+        };
+    }
+
+    // Helper method that looks up the jet in a slot for a search cursor, which runs outside the lock
+    private synchronized Jet jetInSlot(int slot) {
+        return jetsBySlot.get(slot);
+    }
+
+    // This adds a jet's current values to every index (called by addJet and by the Jet setters)
+    // Availability needs no work here, because the availability column is itself a bitmap
+    synchronized void indexJet(Jet jet) {
+        int slot = jet.getSlot();
+        int typeCode = columns.getTypeCode(slot);
+        while (typeBuckets.size() <= typeCode) {
+            typeBuckets.add(new BitSet());
+        }
+        typeBuckets.get(typeCode).set(slot);
+        capacityIndex.computeIfAbsent(jet.getSeatCapacity(), key -> new BitSet()).set(slot);
+        modelIndex.add(jet.getModel(), slot);
+        rateIndex.computeIfAbsent(jet.getHourlyRate(), key -> new BitSet()).set(slot);
+        if (columns.isAvailable(slot)) {
+            skyline.add(jet.getSeatCapacity(), jet.getHourlyRate(), slot);
+        }
+    }
+
+    // This takes a jet's current values out of every index (called by removeJet and by the Jet setters)
+    synchronized void unindexJet(Jet jet) {
+        int slot = jet.getSlot();
+        typeBuckets.get(columns.getTypeCode(slot)).clear(slot);
+        removeFromBucket(capacityIndex, jet.getSeatCapacity(), slot);
+        modelIndex.remove(jet.getModel(), slot);
+        removeFromBucket(rateIndex, jet.getHourlyRate(), slot);
+        if (columns.isAvailable(slot)) {
+            skyline.remove(jet.getSeatCapacity(), jet.getHourlyRate(), slot);
+        }
+    }
+
+    // Helper method to clear a slot from an index bucket, dropping the bucket once it is empty
+    private <K> void removeFromBucket(Map<K, BitSet> index, K key, int slot) {
+        BitSet slots = index.get(key);
+        if (slots != null) {
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
     // Helper method to style header text
     private String styleHeader(String text) {
         return BOLD + text + RESET;
@@ -91,12 +399,12 @@ class JetInventory {
     }
 
     // This displays all jets in the inventory
-    public void displayAllJets() {
+    public synchronized void displayAllJets() {
         // Print styled header
         System.out.println(styleDivider());
         System.out.printf("%s %-15s %s %-34s %s %-27s %s %-10s %s %-12s %s %-15s %s\n",
                 styleHeader(""),
-                styleHeader("No."),
+                styleHeader("ID"),
                 styleHeader(""),
                 styleHeader("Model"),
                 styleHeader(""),
@@ -111,13 +419,13 @@ class JetInventory {
         System.out.println(styleDivider());
 
         // Print each jet with alternating row styles
-        for (int i = 0; i < availableJets.size(); i++) {
-            Jet jet = availableJets.get(i);
-            String rowStyle = styleRowData(jet, i);
+        int i = 0;
+        for (Jet jet : jetsById.values()) {
+            String rowStyle = styleRowData(jet, i++);
 
             System.out.printf("| %s%-5d | %-25s | %-20s | %-10d | %s | %-15s%s\n",
                     rowStyle,
-                    (i+1),
+                    jet.getId(),
                     jet.getModel(),
                     jet.getType(),
                     jet.getSeatCapacity(),
@@ -129,11 +437,22 @@ class JetInventory {
         // Print footer with total count
         System.out.println(styleDivider());
         System.out.println(FG_BRIGHT_MAGENTA + BOLD +
-                "Total Jets: " + availableJets.size() + RESET);
+                "Total Jets: " + jetsById.size() + RESET);
         System.out.println(styleDivider());
     }
 
     public void displayFilteredJets(List<Jet> filteredJets) {
+        printJetTable(filteredJets, 1, "Total Jets: " + filteredJets.size());
+    }
+
+    // This displays one page of search results, numbering the rows from firstNumber
+    public void displayJetPage(List<Jet> page, int firstNumber) {
+        int lastNumber = firstNumber + page.size() - 1;
+        printJetTable(page, firstNumber, "Showing Jets " + firstNumber + " - " + lastNumber);
+    }
+
+    // Helper method that prints a numbered table of jets with a footer line
+    private void printJetTable(List<Jet> jets, int firstNumber, String footer) {
         // Print styled header
         System.out.println(styleDivider());
         System.out.printf("%s %-15s %s %-34s %s %-27s %s %-10s %s %-12s %s %-15s %s\n",
@@ -153,13 +472,13 @@ class JetInventory {
         System.out.println(styleDivider());
 
         // Print each jet with alternating row styles
-        for (int i = 0; i < filteredJets.size(); i++) {
-            Jet jet = filteredJets.get(i);
+        for (int i = 0; i < jets.size(); i++) {
+            Jet jet = jets.get(i);
             String rowStyle = styleRowData(jet, i);
 
             System.out.printf("| %s%-5d | %-25s | %-20s | %-10d | %s | %-15s%s\n",
                     rowStyle,
-                    (i+1),
+                    (firstNumber + i),
                     jet.getModel(),
                     jet.getType(),
                     jet.getSeatCapacity(),
@@ -170,21 +489,59 @@ class JetInventory {
 
         // Print footer with total count
         System.out.println(styleDivider());
-        System.out.println(FG_BRIGHT_MAGENTA + BOLD +
-                "Total Jets: " + filteredJets.size() + RESET);
+        System.out.println(FG_BRIGHT_MAGENTA + BOLD + footer + RESET);
         System.out.println(styleDivider());
     }
 
-    // This gets a jet by its index in the list
-    public Jet getJetByIndex(int index) {
-        if (index >= 0 && index < availableJets.size()) {
-            return availableJets.get(index);
+    // This recommends the cheapest available jet with seats for the given passengers,
+    // or returns null if none costs at most maxHourlyRate. One binary search on the skyline.
+    public synchronized Jet recommendJet(int passengers, double maxHourlyRate) {
+        int slot = skyline.recommend(passengers, maxHourlyRate);
+        return slot >= 0 ? jetsBySlot.get(slot) : null;
+    }
+
+    // This returns the best-value available jets: each is the cheapest jet with at least its seats.
+    // They are sorted by capacity, and their rates go up with it.
+    public synchronized List<Jet> getBestValueJets() {
+        List<Jet> bestValueJets = new ArrayList<>();
+        for (int slot : skyline.getFrontierSlots()) {
+            bestValueJets.add(jetsBySlot.get(slot));
         }
-        return null;
+        return bestValueJets;
+    }
+
+    // This returns every jet type registered so far, so menus can list them
+    public synchronized List<String> getJetTypes() {
+        return typeDictionary.getTypeNames();
+    }
+
+    // This sets the typical cruise speed of a jet type, registering the type if it is new
+    public synchronized void setCruiseKnots(String type, double knots) {
+        typeDictionary.setCruiseKnots(typeDictionary.intern(type), knots);
+    }
+
+    // This returns the typical cruise speed of a jet type, or 0 if it is not known
+    public synchronized double getCruiseKnots(String type) {
+        int code = typeDictionary.lookup(type);
+        return code < 0 ? 0 : typeDictionary.getCruiseKnots(code);
     }
 
     // This counts how many jets are in the inventory
-    public int getJetCount() {
-        return availableJets.size();
+    public synchronized int getJetCount() {
+        return jetsById.size();
+    }
+
+    // This returns every jet, in the order they were added
+    public synchronized List<Jet> getAllJets() {
+        return new ArrayList<>(jetsById.values());
+    }
+
+    // These let a snapshot save and restore the ID counter, so IDs of removed jets are never handed out again
+    synchronized int getNextJetId() {
+        return nextJetId;
+    }
+
+    synchronized void skipJetId(int id) {
+        nextJetId = Math.max(nextJetId, id + 1);
     }
 }
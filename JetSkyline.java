@@ -0,0 +1,94 @@
+import java.util.*;
+
+// This class keeps the skyline (Pareto frontier) of seat capacity against hourly rate over the
+// jets that are available: every jet for which no other jet has at least as many seats for at most
+// the same rate. Sorted by capacity, the skyline's rates only go up, so the cheapest jet seating
+// N passengers is simply the first skyline jet with N or more seats - one binary search.
+// The skyline is updated in place as jets come and go, instead of being rebuilt from the fleet.
+class JetSkyline {
+    private TreeMap<Integer, TreeMap<Double, BitSet>> slotsByCapacity;  // Capacity -> rate -> slots of available jets
+    private TreeMap<Integer, Double> frontier;                          // Skyline: capacity -> lowest rate, rates rising
+
+    // This is a constructor - it creates an empty skyline
+    public JetSkyline() {
+        this.slotsByCapacity = new TreeMap<>();
+        this.frontier = new TreeMap<>();
+    }
+
+    // This adds an available jet, in O(log n) plus the skyline points it pushes out
+    public void add(int capacity, double rate, int slot) {
+        slotsByCapacity.computeIfAbsent(capacity, key -> new TreeMap<>())
+                .computeIfAbsent(rate, key -> new BitSet()).set(slot);
+
+        // Nothing changes if a jet with at least as many seats is already as cheap
+        Map.Entry<Integer, Double> bigger = frontier.ceilingEntry(capacity);
+        if (bigger != null && bigger.getValue() <= rate) {
+            return;
+        }
+        // Otherwise the jet joins the skyline, and pushes out smaller jets that are not cheaper
+        frontier.put(capacity, rate);
+        Map.Entry<Integer, Double> smaller = frontier.lowerEntry(capacity);
+        while (smaller != null && smaller.getValue() >= rate) {
+            frontier.remove(smaller.getKey());
+            smaller = frontier.lowerEntry(capacity);
+        }
+    }
+
+    // This removes a jet that is no longer available. If it was the last jet of a skyline point,
+    // only the capacities between that point and the next smaller one have to be looked at again.
+    public void remove(int capacity, double rate, int slot) {
+        TreeMap<Double, BitSet> rates = slotsByCapacity.get(capacity);
+        if (rates == null || !rates.containsKey(rate)) {
+            return;
+        }
+        BitSet slots = rates.get(rate);
+        slots.clear(slot);
+        if (!slots.isEmpty()) {
+            return;
+        }
+        rates.remove(rate);
+        if (rates.isEmpty()) {
+            slotsByCapacity.remove(capacity);
+        }
+
+        Double frontierRate = frontier.get(capacity);
+        if (frontierRate == null || frontierRate != rate) {
+            return; // It was not on the skyline, so the skyline stays the same
+        }
+        frontier.remove(capacity);
+
+        // Refill the gap from the top down: a capacity joins if it is cheaper than everything above it
+        Map.Entry<Integer, Double> above = frontier.higherEntry(capacity);
+        double cheapestAbove = above != null ? above.getValue() : Double.POSITIVE_INFINITY;
+        Integer below = frontier.lowerKey(capacity);
+        NavigableMap<Integer, TreeMap<Double, BitSet>> gap = below != null
+                ? slotsByCapacity.subMap(below, false, capacity, true)
+                : slotsByCapacity.headMap(capacity, true);
+        for (Map.Entry<Integer, TreeMap<Double, BitSet>> entry : gap.descendingMap().entrySet()) {
+            double lowestRate = entry.getValue().firstKey();
+            if (lowestRate < cheapestAbove) {
+                frontier.put(entry.getKey(), lowestRate);
+                cheapestAbove = lowestRate;
+            }
+        }
+    }
+
+    // This returns the slot of the cheapest available jet with at least the given seats,
+    // or -1 if there is none or it costs more than maxRate. Runs in O(log n).
+    public int recommend(int passengers, double maxRate) {
+        Map.Entry<Integer, Double> best = frontier.ceilingEntry(passengers);
+        if (best == null || best.getValue() > maxRate) {
+            return -1;
+        }
+        return slotsByCapacity.get(best.getKey()).get(best.getValue()).nextSetBit(0);
+    }
+
+    // This returns one slot per skyline point, from the smallest (and cheapest) jet to the biggest
+    public List<Integer> getFrontierSlots() {
+        List<Integer> slots = new ArrayList<>(frontier.size());
+        for (Map.Entry<Integer, Double> point : frontier.entrySet()) {
+            slots.add(slotsByCapacity.get(point.getKey()).get(point.getValue()).nextSetBit(0));
+        }
+        return slots;
+    }
+}
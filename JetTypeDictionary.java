@@ -0,0 +1,67 @@
+import java.util.*;
+
+// This class is the list of every jet type known to the inventory.
+// Each distinct type is stored once and given a small number (its code), so jets can
+// store and compare that number instead of comparing type names letter by letter.
+// What is known about a type as a whole (its typical cruise speed) is kept here too, by code.
+class JetTypeDictionary {
+    private Map<String, Integer> codesByKey;   // Lower-case type name -> code
+    private List<String> typeNames;            // Code -> type name as first written
+    private List<Double> cruiseKnots;          // Code -> typical cruise speed in knots (0 if not known)
+
+    // This is a constructor - it creates an empty dictionary
+    public JetTypeDictionary() {
+        this.codesByKey = new HashMap<>();
+        this.typeNames = new ArrayList<>();
+        this.cruiseKnots = new ArrayList<>();
+    }
+
+    // This returns the code of a type, registering the type first if it is new
+    public int intern(String type) {
+        String key = typeKey(type);
+        Integer code = codesByKey.get(key);
+        if (code == null) {
+            code = typeNames.size();
+            codesByKey.put(key, code);
+            typeNames.add(type == null ? "" : type.trim());
+            cruiseKnots.add(0.0);
+        }
+        return code;
+    }
+
+    // This returns the code of a type, or -1 if the type was never registered
+    public int lookup(String type) {
+        Integer code = codesByKey.get(typeKey(type));
+        return code == null ? -1 : code;
+    }
+
+    // This returns the name of the type with the given code
+    public String getName(int code) {
+        return typeNames.get(code);
+    }
+
+    // This returns every registered type name, in the order they were first seen
+    public List<String> getTypeNames() {
+        return Collections.unmodifiableList(typeNames);
+    }
+
+    // This sets the typical cruise speed of the type with the given code
+    public void setCruiseKnots(int code, double knots) {
+        cruiseKnots.set(code, knots);
+    }
+
+    // This returns the typical cruise speed of the type with the given code, or 0 if it is not known
+    public double getCruiseKnots(int code) {
+        return cruiseKnots.get(code);
+    }
+
+    // This counts how many types are registered
+    public int size() {
+        return typeNames.size();
+    }
+
+    // Helper method so jet types are matched without caring about upper/lower case or extra spaces
+    private static String typeKey(String type) {
+        return type == null ? "" : type.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+// This class adds up amounts per int key, like a Map<Integer, Double> but without boxing.
+// Keys live in an open-addressing hash table (linear probing), with the sums and counts
+// in parallel primitive arrays, so adding to a total allocates nothing.
+class KeyedTotals {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;        // Slot -> key
+    private boolean[] used;    // Slot -> whether the slot holds a key
+    private double[] sums;     // Slot -> total amount for that key
+    private long[] counts;     // Slot -> how many items were added for that key
+    private int size;          // How many keys are stored
+
+    // This is a constructor - it creates an empty set of totals
+    public KeyedTotals() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.used = new boolean[INITIAL_CAPACITY];
+        this.sums = new double[INITIAL_CAPACITY];
+        this.counts = new long[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    // This adds an amount to the total of a key; a negative count takes an item away again
+    public void add(int key, double amount, int count) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+        }
+        int slot = find(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        sums[slot] += amount;
+        counts[slot] += count;
+    }
+
+    // This reads the total of a key (0 if it was never added)
+    public double getSum(int key) {
+        int slot = find(key);
+        return used[slot] ? sums[slot] : 0.0;
+    }
+
+    // This returns every key that currently has at least one item, in ascending order
+    public int[] getKeys() {
+        int[] result = new int[size];
+        int found = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot] && counts[slot] > 0) {
+                result[found++] = keys[slot];
+            }
+        }
+        result = Arrays.copyOf(result, found);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Helper method that finds the slot of a key, or the empty slot where it would go
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;  // Spread the bits, so nearby keys do not cluster
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Helper method that doubles the table and puts every key back in
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        double[] oldSums = sums;
+        long[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        sums = new double[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldUsed[oldSlot]) {
+                int slot = find(oldKeys[oldSlot]);
+                used[slot] = true;
+                keys[slot] = oldKeys[oldSlot];
+                sums[slot] = oldSums[oldSlot];
+                counts[slot] = oldCounts[oldSlot];
+            }
+        }
+    }
+}
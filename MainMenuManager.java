@@ -44,6 +44,10 @@ public class MainMenuManager {
                 "⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿⣿\n"+ reset);
 
         while (running) {
+            if (bookingManager.isJournalBroken()) {
+                UserInterface.printError("Warning: bookings can no longer be saved after a disk error."
+                        + " Please restart the application.");
+            }
             UserInterface.printWelcomeBanner();
             UserInterface.printHeader("Private Jet Rental Application");
             UserInterface.printMenuOption(1, "Browse Available Jets");
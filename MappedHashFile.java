@@ -0,0 +1,255 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.BiConsumer;
+
+// This class is a hash table that lives in a memory-mapped file instead of on the heap.
+// Keys are strings and values are small byte arrays; each entry takes one fixed-size slot,
+// and collisions go to the next slot (linear probing). Finding a key reads a slot or two
+// straight from the page cache, so the table can be far bigger than the heap.
+//
+// File layout: a 32-byte header (magic, slot size, slot count, entries, deleted slots), then the slots.
+// Each slot is [byte state][int key hash][short key length][key][short value length][value].
+// When the table gets too full it is rewritten at twice the size into a temp file,
+// which is then renamed over the old one.
+class MappedHashFile implements Closeable {
+    private static final int MAGIC = 0x504A4854;  // "PJHT"
+    private static final int HEADER_BYTES = 32;
+    private static final int MIN_SLOTS = 1024;
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte DELETED = 2;        // Removed entry; probing has to go past it
+
+    private Path path;
+    private int slotSize;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotCount;   // Always a power of two
+    private int size;        // Slots in use
+    private int deleted;     // Slots holding a removed entry
+
+    // This is a constructor - it wraps an open, mapped table file
+    private MappedHashFile(Path path, int slotSize, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.slotSize = slotSize;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotCount = buffer.getInt(8);
+        this.size = buffer.getInt(12);
+        this.deleted = buffer.getInt(16);
+    }
+
+    // This opens the table file, creating an empty table if it does not exist yet
+    public static MappedHashFile open(String filename, int slotSize) throws IOException {
+        Path path = Paths.get(filename);
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            createEmpty(path, slotSize, MIN_SLOTS);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != slotSize
+                || channel.size() != HEADER_BYTES + (long) buffer.getInt(8) * slotSize) {
+            channel.close();
+            throw new IOException("Not a table file, or a damaged one: " + filename);
+        }
+        return new MappedHashFile(path, slotSize, channel, buffer);
+    }
+
+    // This returns the value stored for a key, or null if there is none
+    public synchronized byte[] get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int slot = find(keyBytes, hash(keyBytes));
+        if (slot < 0) {
+            return null;
+        }
+        int position = slotStart(slot) + 7 + keyBytes.length;
+        byte[] value = new byte[buffer.getShort(position)];
+        buffer.get(position + 2, value);
+        return value;
+    }
+
+    // This tells whether a key and a value of the given length fit in one slot
+    public boolean fits(String key, int valueLength) {
+        return 9 + key.getBytes(StandardCharsets.UTF_8).length + valueLength <= slotSize;
+    }
+
+    // This stores a value for a key, replacing the old value if there was one
+    public synchronized void put(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (!fits(key, value.length)) {
+            throw new IOException("Entry for '" + key + "' does not fit in a " + slotSize + "-byte slot");
+        }
+        int hash = hash(keyBytes);
+        int slot = find(keyBytes, hash);
+        if (slot < 0) {
+            if ((size + deleted + 1) * 10L > slotCount * 7L) {
+                rehash(Math.max(slotCount, Integer.highestOneBit(Math.max(size, 1)) * 4));
+            }
+            slot = freeSlot(hash);
+            if (buffer.get(slotStart(slot)) == DELETED) {
+                deleted--;
+            }
+            size++;
+        }
+        writeSlot(slot, hash, keyBytes, value);
+        writeCounts();
+    }
+
+    // This removes a key and reports whether it was there
+    public synchronized boolean remove(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int slot = find(keyBytes, hash(keyBytes));
+        if (slot < 0) {
+            return false;
+        }
+        buffer.put(slotStart(slot), DELETED);
+        size--;
+        deleted++;
+        writeCounts();
+        return true;
+    }
+
+    // This counts the stored keys
+    public synchronized int size() {
+        return size;
+    }
+
+    // This calls the action for every key and value, in slot order
+    public synchronized void forEach(BiConsumer<String, byte[]> action) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            int start = slotStart(slot);
+            if (buffer.get(start) == USED) {
+                byte[] keyBytes = new byte[buffer.getShort(start + 5)];
+                buffer.get(start + 7, keyBytes);
+                byte[] value = new byte[buffer.getShort(start + 7 + keyBytes.length)];
+                buffer.get(start + 9 + keyBytes.length, value);
+                action.accept(new String(keyBytes, StandardCharsets.UTF_8), value);
+            }
+        }
+    }
+
+    // This writes outstanding changes and closes the file
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    // Helper method that finds the slot holding a key, or returns -1
+    private int find(byte[] keyBytes, int hash) {
+        int mask = slotCount - 1;
+        for (int slot = hash & mask, probes = 0; probes < slotCount; slot = (slot + 1) & mask, probes++) {
+            int start = slotStart(slot);
+            byte state = buffer.get(start);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && buffer.getInt(start + 1) == hash && keyEquals(start, keyBytes)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Helper method that finds the first empty or deleted slot on a key's probe path
+    private int freeSlot(int hash) {
+        int mask = slotCount - 1;
+        int slot = hash & mask;
+        while (buffer.get(slotStart(slot)) == USED) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Helper method that compares the key stored in a slot with the given key bytes
+    private boolean keyEquals(int start, byte[] keyBytes) {
+        if (buffer.getShort(start + 5) != keyBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(start + 7 + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Helper method that writes one entry into a slot
+    private void writeSlot(int slot, int hash, byte[] keyBytes, byte[] value) {
+        int start = slotStart(slot);
+        buffer.putInt(start + 1, hash);
+        buffer.putShort(start + 5, (short) keyBytes.length);
+        buffer.put(start + 7, keyBytes);
+        buffer.putShort(start + 7 + keyBytes.length, (short) value.length);
+        buffer.put(start + 9 + keyBytes.length, value);
+        buffer.put(start, USED); // Marked as used last, once the entry is complete
+    }
+
+    // Helper method that stores the entry counts in the header
+    private void writeCounts() {
+        buffer.putInt(12, size);
+        buffer.putInt(16, deleted);
+    }
+
+    // Helper method that rewrites the table with the given number of slots, dropping deleted entries
+    private void rehash(int newSlotCount) throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        createEmpty(temp, slotSize, newSlotCount);
+        MappedHashFile bigger = open(temp.toString(), slotSize);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int start = slotStart(slot);
+            if (buffer.get(start) == USED) {
+                int hash = buffer.getInt(start + 1);
+                byte[] keyBytes = new byte[buffer.getShort(start + 5)];
+                buffer.get(start + 7, keyBytes);
+                byte[] value = new byte[buffer.getShort(start + 7 + keyBytes.length)];
+                buffer.get(start + 9 + keyBytes.length, value);
+                bigger.writeSlot(bigger.freeSlot(hash), hash, keyBytes, value);
+                bigger.size++;
+            }
+        }
+        bigger.writeCounts();
+        bigger.close();
+        channel.close();
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        slotCount = newSlotCount;
+        size = buffer.getInt(12);
+        deleted = 0;
+    }
+
+    // Helper method that writes an empty table file
+    private static void createEmpty(Path path, int slotSize, int slotCount) throws IOException {
+        long length = HEADER_BYTES + (long) slotCount * slotSize;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Table file would be larger than 2 GB");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(0);
+            file.setLength(length);  // New bytes read as zero, so every slot starts out EMPTY
+            file.writeInt(MAGIC);
+            file.writeInt(slotSize);
+            file.writeInt(slotCount);
+            file.writeInt(0);
+            file.writeInt(0);
+        }
+    }
+
+    // Helper method that returns where a slot starts in the file
+    private int slotStart(int slot) {
+        return HEADER_BYTES + slot * slotSize;
+    }
+
+    // Helper method that hashes key bytes, spreading the bits so similar keys land far apart
+    private static int hash(byte[] keyBytes) {
+        int hash = 0x811C9DC5;  // FNV-1a
+        for (byte b : keyBytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
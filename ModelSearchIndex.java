@@ -0,0 +1,192 @@
+import java.util.*;
+
+// This class is a trie (prefix tree) over jet model names.
+// Each letter of a model name is one step down the tree, so finding every model that starts
+// with a prefix only walks as many steps as the prefix is long, no matter how big the fleet is.
+// A model is stored once from each of its words, so "falcon" finds "Dassault Falcon 8X" too.
+// It can also find models despite small typos, by walking the tree while tracking the edit distance.
+class ModelSearchIndex {
+    // One position in the tree: the letters that can follow, and the jets whose model ends here
+    private static class Node {
+        Map<Character, Node> children = new HashMap<>();
+        List<Integer> slots = new ArrayList<>(1);   // Slots of the jets whose model ends at this node
+        int jetCount;                                // How many jets are in this node's whole subtree
+    }
+
+    private Node root;
+
+    // This is a constructor - it creates an empty index
+    public ModelSearchIndex() {
+        this.root = new Node();
+    }
+
+    // This adds a jet's model name to the index
+    public void add(String model, int slot) {
+        for (String key : wordSuffixes(model)) {
+            addKey(key, slot);
+        }
+    }
+
+    // This removes a jet's model name from the index
+    public void remove(String model, int slot) {
+        for (String key : wordSuffixes(model)) {
+            removeKey(key, slot);
+        }
+    }
+
+    // Helper method that adds one key to the tree
+    private void addKey(String key, int slot) {
+        Node node = root;
+        node.jetCount++;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), letter -> new Node());
+            node.jetCount++;
+        }
+        node.slots.add(slot);
+    }
+
+    // Helper method that removes one key from the tree, dropping branches that become empty
+    private void removeKey(String key, int slot) {
+        // Find the path first, so nothing changes if the jet is not in the index
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].children.get(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        if (!path[key.length()].slots.remove(Integer.valueOf(slot))) {
+            return;
+        }
+
+        for (int i = key.length(); i >= 0; i--) {
+            path[i].jetCount--;
+            if (i > 0 && path[i].jetCount == 0) {
+                path[i - 1].children.remove(key.charAt(i - 1));
+            }
+        }
+    }
+
+    // This returns the slots of up to limit jets with a word in their model starting with the prefix
+    public List<Integer> findByPrefix(String prefix, int limit) {
+        Set<Integer> slots = new LinkedHashSet<>();
+        String key = normalize(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node != null) {
+            collect(node, slots, limit);
+        }
+        return new ArrayList<>(slots);
+    }
+
+    // This returns the slots of up to limit jets with a word in their model starting with something
+    // at most maxEdits typos (wrong, missing or extra letters) away from the query, closest first
+    public List<Integer> findSimilar(String query, int maxEdits, int limit) {
+        String key = normalize(query);
+
+        // Row i of the edit distance table between the query and the path walked so far.
+        // The first row is the distance from each query prefix to the empty path.
+        int[] firstRow = new int[key.length() + 1];
+        for (int i = 0; i <= key.length(); i++) {
+            firstRow[i] = i;
+        }
+
+        // Slot -> smallest distance found for that jet
+        Map<Integer, Integer> distances = new HashMap<>();
+        if (firstRow[key.length()] <= maxEdits) {
+            addMatches(root, firstRow[key.length()], distances, limit);
+        } else {
+            for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+                searchSimilar(child.getValue(), child.getKey(), key, firstRow, Integer.MAX_VALUE,
+                        maxEdits, distances, limit);
+            }
+        }
+
+        // Closest matches first
+        List<Integer> slots = new ArrayList<>(distances.keySet());
+        slots.sort(Comparator.comparingInt(distances::get));
+        return slots.size() > limit ? new ArrayList<>(slots.subList(0, limit)) : slots;
+    }
+
+    // Helper method that walks one step down the tree for findSimilar.
+    // best is the smallest distance between the whole query and any prefix of the path so far;
+    // a model matches with that distance once it is within maxEdits.
+    private void searchSimilar(Node node, char letter, String query, int[] previousRow, int best,
+                               int maxEdits, Map<Integer, Integer> distances, int limit) {
+        int[] row = new int[query.length() + 1];
+        row[0] = previousRow[0] + 1;
+        int smallest = row[0];
+        for (int i = 1; i <= query.length(); i++) {
+            int substitute = previousRow[i - 1] + (query.charAt(i - 1) == letter ? 0 : 1);
+            int insert = row[i - 1] + 1;
+            int delete = previousRow[i] + 1;
+            row[i] = Math.min(substitute, Math.min(insert, delete));
+            smallest = Math.min(smallest, row[i]);
+        }
+        best = Math.min(best, row[query.length()]);
+
+        if (smallest > maxEdits || smallest >= best) {
+            // Going deeper cannot improve the distance any more
+            if (best <= maxEdits) {
+                addMatches(node, best, distances, limit);
+            }
+            return;
+        }
+
+        if (best <= maxEdits) {
+            for (int slot : node.slots) {
+                distances.merge(slot, best, Math::min);
+            }
+        }
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            searchSimilar(child.getValue(), child.getKey(), query, row, best, maxEdits, distances, limit);
+        }
+    }
+
+    // Helper method that adds the jets below a node as matches with the given distance
+    private void addMatches(Node node, int distance, Map<Integer, Integer> distances, int limit) {
+        Set<Integer> slots = new LinkedHashSet<>();
+        collect(node, slots, limit);
+        for (int slot : slots) {
+            distances.merge(slot, distance, Math::min);
+        }
+    }
+
+    // Helper method that collects up to limit jet slots from a node's subtree
+    private void collect(Node node, Set<Integer> slots, int limit) {
+        for (int slot : node.slots) {
+            if (slots.size() >= limit) {
+                return;
+            }
+            slots.add(slot);
+        }
+        for (Node child : node.children.values()) {
+            if (slots.size() >= limit) {
+                return;
+            }
+            collect(child, slots, limit);
+        }
+    }
+
+    // Helper method that lists the model name starting from each of its words
+    // (e.g. "dassault falcon 8x", "falcon 8x" and "8x")
+    private static List<String> wordSuffixes(String model) {
+        String key = normalize(model);
+        List<String> suffixes = new ArrayList<>();
+        suffixes.add(key);
+        for (int i = 1; i < key.length(); i++) {
+            if (key.charAt(i - 1) == ' ' && key.charAt(i) != ' ') {
+                suffixes.add(key.substring(i));
+            }
+        }
+        return suffixes;
+    }
+
+    // Helper method so model names are matched without caring about upper/lower case or extra spaces
+    private static String normalize(String model) {
+        return model == null ? "" : model.trim().toLowerCase(Locale.ROOT);
+    }
+}
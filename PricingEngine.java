@@ -0,0 +1,188 @@
+import java.util.*;
+
+// This class works out the price of every booking, so the booking itself and the booking menu
+// always agree. Pricing rules (trip types, per-type rate multipliers and surcharges) can be added
+// at any time; they are then compiled into small lookup tables, so pricing a quote is a couple of
+// table reads and a multiply, with no objects created along the way.
+//
+// The price of a trip is:
+//     legs * hours * (hourly rate * type multiplier + per-hour surcharges) + flat surcharges
+class PricingEngine {
+    private static PricingEngine instance;  // The single shared engine, created on first use
+
+    // A surcharge added to every trip, or only to trips on one jet type
+    private static class Surcharge {
+        final String jetType;       // null means every jet type
+        final double flatFee;       // Added once per trip
+        final double perHourFee;    // Added for every flight hour
+
+        Surcharge(String jetType, double flatFee, double perHourFee) {
+            this.jetType = jetType;
+            this.flatFee = flatFee;
+            this.perHourFee = perHourFee;
+        }
+    }
+
+    // The rules as they were entered
+    private Map<String, Integer> legsByTripType;          // Trip type -> how many legs are flown
+    private Map<String, Double> rateMultiplierByJetType;  // Jet type -> multiplier on the hourly rate
+    private List<Surcharge> surcharges;
+
+    // The rules compiled into lookup tables. Row = trip type code, column = jet type code.
+    // Code 0 is "any other" in both directions (one leg, no multiplier, general surcharges only).
+    // The tables are replaced as a whole when a rule changes, so a quote always sees one consistent set.
+    private static class Tables {
+        final Map<String, Integer> tripCodes;      // Trip type -> row (case-insensitive)
+        final Map<String, Integer> jetTypeCodes;   // Jet type -> column (case-insensitive)
+        final double[][] legs;
+        final double[][] rateMultipliers;
+        final double[][] perHourFees;
+        final double[][] flatFees;
+
+        Tables(Map<String, Integer> tripCodes, Map<String, Integer> jetTypeCodes) {
+            this.tripCodes = tripCodes;
+            this.jetTypeCodes = jetTypeCodes;
+            int rows = tripCodes.size() + 1;
+            int columns = jetTypeCodes.size() + 1;
+            this.legs = new double[rows][columns];
+            this.rateMultipliers = new double[rows][columns];
+            this.perHourFees = new double[rows][columns];
+            this.flatFees = new double[rows][columns];
+        }
+    }
+
+    private volatile Tables tables;
+
+    // This returns the shared pricing engine, with the standard rules, creating it the first time
+    public static synchronized PricingEngine getInstance() {
+        if (instance == null) {
+            instance = new PricingEngine();
+        }
+        return instance;
+    }
+
+    // This is a constructor - it creates an engine with the standard rules:
+    // a one-way trip is flown once and a round trip twice, with no surcharges
+    public PricingEngine() {
+        this.legsByTripType = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.rateMultiplierByJetType = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.surcharges = new ArrayList<>();
+        legsByTripType.put("One-way", 1);
+        legsByTripType.put("Round-trip", 2);
+        compile();
+    }
+
+    // These methods add or change pricing rules; each one recompiles the lookup tables
+    public synchronized void setTripTypeLegs(String tripType, int legs) {
+        legsByTripType.put(tripType, legs);
+        compile();
+    }
+
+    public synchronized void setRateMultiplier(String jetType, double multiplier) {
+        rateMultiplierByJetType.put(jetType, multiplier);
+        compile();
+    }
+
+    // A jetType of null applies the surcharge to every jet type
+    public synchronized void addSurcharge(String jetType, double flatFee, double perHourFee) {
+        surcharges.add(new Surcharge(jetType, flatFee, perHourFee));
+        compile();
+    }
+
+    // This tells how many legs a trip type is flown (and charged) for; unknown trip types are flown once
+    public int getLegs(String tripType) {
+        Tables current = tables;
+        return (int) current.legs[code(current.tripCodes, tripType)][0];
+    }
+
+    // This prices a single trip
+    public double quote(Jet jet, String tripType, int flightDuration) {
+        return price(tables, jet, tripType, flightDuration);
+    }
+
+    // This prices a single request
+    public double quote(QuoteRequest request) {
+        return quote(request.getJet(), request.getTripType(), request.getFlightDuration());
+    }
+
+    // This prices a whole batch of requests in one pass and returns the prices in the same order
+    public double[] quote(List<QuoteRequest> requests) {
+        double[] prices = new double[requests.size()];
+        quote(requests, prices);
+        return prices;
+    }
+
+    // This prices a batch of requests into an array the caller already has, so a caller that
+    // reuses the array does not allocate anything at all. All prices use the same set of rules.
+    public void quote(List<QuoteRequest> requests, double[] prices) {
+        if (prices.length < requests.size()) {
+            throw new IllegalArgumentException("The price array is smaller than the number of requests");
+        }
+        Tables current = tables;
+        for (int i = 0; i < requests.size(); i++) {
+            QuoteRequest request = requests.get(i);
+            prices[i] = price(current, request.getJet(), request.getTripType(), request.getFlightDuration());
+        }
+    }
+
+    // Helper method that prices one trip from the compiled tables
+    private static double price(Tables tables, Jet jet, String tripType, int flightDuration) {
+        int row = code(tables.tripCodes, tripType);
+        int column = code(tables.jetTypeCodes, jet.getType());
+        double hourly = jet.getHourlyRate() * tables.rateMultipliers[row][column] + tables.perHourFees[row][column];
+        return tables.legs[row][column] * flightDuration * hourly + tables.flatFees[row][column];
+    }
+
+    // Helper method that looks up a row or column code, using 0 for anything unknown
+    private static int code(Map<String, Integer> codes, String key) {
+        if (key == null) {
+            return 0;
+        }
+        Integer code = codes.get(key);
+        return code == null ? 0 : code;
+    }
+
+    // Helper method that turns the rules into lookup tables
+    private void compile() {
+        Map<String, Integer> tripCodes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String tripType : legsByTripType.keySet()) {
+            tripCodes.put(tripType, tripCodes.size() + 1);
+        }
+        Map<String, Integer> jetTypeCodes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String jetType : rateMultiplierByJetType.keySet()) {
+            jetTypeCodes.put(jetType, jetTypeCodes.size() + 1);
+        }
+        for (Surcharge surcharge : surcharges) {
+            if (surcharge.jetType != null && !jetTypeCodes.containsKey(surcharge.jetType)) {
+                jetTypeCodes.put(surcharge.jetType, jetTypeCodes.size() + 1);
+            }
+        }
+
+        Tables compiled = new Tables(tripCodes, jetTypeCodes);
+        for (int row = 0; row < compiled.legs.length; row++) {
+            Arrays.fill(compiled.legs[row], 1.0);
+            Arrays.fill(compiled.rateMultipliers[row], 1.0);
+        }
+        for (Map.Entry<String, Integer> trip : tripCodes.entrySet()) {
+            Arrays.fill(compiled.legs[trip.getValue()], legsByTripType.get(trip.getKey()));
+        }
+        for (Map.Entry<String, Double> rule : rateMultiplierByJetType.entrySet()) {
+            int column = jetTypeCodes.get(rule.getKey());
+            for (double[] row : compiled.rateMultipliers) {
+                row[column] = rule.getValue();
+            }
+        }
+        for (Surcharge surcharge : surcharges) {
+            for (int row = 0; row < compiled.legs.length; row++) {
+                for (int column = 0; column < compiled.legs[row].length; column++) {
+                    if (surcharge.jetType == null || jetTypeCodes.get(surcharge.jetType) == column) {
+                        compiled.flatFees[row][column] += surcharge.flatFee;
+                        compiled.perHourFees[row][column] += surcharge.perHourFee;
+                    }
+                }
+            }
+        }
+
+        tables = compiled;
+    }
+}
@@ -1,28 +1,139 @@
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.*;
 
 public class PrivateJetRentalApp {
+    private static final String SNAPSHOT_FILE = "privatejet.snapshot";
+    private static final String USER_STORE_FILE = "users.db";
+    private static final int CACHED_USERS = 10000;
 
     public static void main(String[] args) {
         // Initialize the system
         JetInventory jetInventory = new JetInventory();
-        UserManager userManager = new UserManager();
+        registerCruiseSpeeds(jetInventory);
+        UserStore userStore = openUserStore(USER_STORE_FILE);
+        UserManager userManager = userStore != null ? new UserManager(userStore, CACHED_USERS) : new UserManager();
         BookingManager bookingManager = new BookingManager();
 
-        // Load data
-        userManager.loadUsersFromCSV("users.csv");
-        boolean dataLoaded = FileManager.loadJetsFromCSV(jetInventory);
-        if (!dataLoaded) {
-            // Load default jets if CSV read fails
-            loadDefaultJets(jetInventory);
+        // Load data from the last snapshot; the CSV files are only imported when there is none
+        if (!loadSnapshot(SNAPSHOT_FILE, jetInventory, userManager, bookingManager)) {
+            if (userManager.getUserCount() == 0) {
+                try {
+                    printImportReport("users", userManager.loadUsersFromCSV("users.csv"));
+                } catch (IOException e) {
+                    System.out.println("Error loading users: " + e.getMessage());
+                }
+            }
+            try {
+                printImportReport("jets", FileManager.loadJetsFromCSV(jetInventory));
+            } catch (IOException e) {
+                // Load default jets if CSV read fails
+                System.out.println("Error reading jet data from CSV: " + e.getMessage());
+                loadDefaultJets(jetInventory);
+            }
         }
 
+        // Bring back the bookings and jet changes from the journal, then keep writing new ones to it
+        BookingJournal bookingJournal = openBookingJournal("bookings.journal", jetInventory, userManager, bookingManager);
+
         // Start the application
         MainMenuManager mainMenu = new MainMenuManager(jetInventory, userManager, bookingManager);
         mainMenu.displayMainMenu();
 
-        // Save User Data Upon Exit
-        userManager.saveUsersToCSV("users.csv");
+        // Save everything upon exit; users kept in memory are also exported to CSV
+        if (!userManager.isDiskBacked()) {
+            userManager.saveUsersToCSV("users.csv");
+        }
+        try {
+            StateSnapshot.save(SNAPSHOT_FILE, jetInventory, userManager, bookingManager);
+            if (bookingJournal != null) {
+                bookingJournal.reset(); // Everything in it is in the snapshot now
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+        }
+        if (bookingJournal != null) {
+            try {
+                bookingJournal.close();
+            } catch (IOException e) {
+                System.out.println("Error closing booking journal: " + e.getMessage());
+            }
+        }
+        if (userStore != null) {
+            try {
+                try {
+                    userManager.close(); // Merges the user changes still in the change log into the store
+                } finally {
+                    userStore.close();
+                }
+            } catch (IOException e) {
+                System.out.println("Error closing user store: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void printImportReport(String what, CsvImportReport report) {
+        System.out.println("CSV file successfully loaded. Total " + what + ": " + report.getLoadedCount());
+        if (report.getErrorCount() > 0) {
+            System.out.println(report.getErrorCount() + " line(s) were skipped:");
+            for (CsvLineError error : report.getErrors()) {
+                System.out.println("  " + error);
+            }
+            if (report.getErrorCount() > report.getErrors().size()) {
+                System.out.println("  ...");
+            }
+        }
+    }
+
+    private static UserStore openUserStore(String filename) {
+        try {
+            return UserStore.open(filename);
+        } catch (IOException e) {
+            System.out.println("Error opening user store, users will only be kept in memory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean loadSnapshot(String filename, JetInventory jetInventory,
+                                        UserManager userManager, BookingManager bookingManager) {
+        try {
+            return StateSnapshot.load(filename, jetInventory, userManager, bookingManager);
+        } catch (IOException e) {
+            System.out.println("Error loading snapshot, importing CSV files instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static BookingJournal openBookingJournal(String filename, JetInventory jetInventory,
+                                                     UserManager userManager, BookingManager bookingManager) {
+        BookingJournal bookingJournal = null;
+        try {
+            bookingJournal = BookingJournal.open(filename);
+            bookingJournal.replay(bookingManager, jetInventory, userManager);
+            bookingManager.setJournal(bookingJournal);
+            jetInventory.setJournal(bookingJournal);
+            return bookingJournal;
+        } catch (IOException e) {
+            System.out.println("Error opening booking journal, bookings will not be saved: " + e.getMessage());
+            if (bookingJournal != null) {
+                try {
+                    bookingJournal.close();
+                } catch (IOException closeError) {
+                    // Nothing more can be done; the journal is not used
+                }
+            }
+            return null;
+        }
+    }
+
+    // The typical cruise speeds (knots) of the standard jet types, used to estimate flight times.
+    // Types added later get theirs from the admin menu, and the snapshot keeps them.
+    private static void registerCruiseSpeeds(JetInventory jetInventory) {
+        jetInventory.setCruiseKnots("Ultra Long Range", 488.0);
+        jetInventory.setCruiseKnots("Large Jet", 470.0);
+        jetInventory.setCruiseKnots("Super Mid-Size", 460.0);
+        jetInventory.setCruiseKnots("Mid-Size", 440.0);
+        jetInventory.setCruiseKnots("Light Jet", 400.0);
     }
 
     private static void loadDefaultJets(JetInventory jetInventory) {
@@ -0,0 +1,27 @@
+// This class describes one price question for the pricing engine:
+// what a given jet would cost for a trip of a given type and length
+class QuoteRequest {
+    private Jet jet;               // The jet to price
+    private String tripType;       // One-way or Round-trip
+    private int flightDuration;    // Length of one leg in hours
+
+    // This is a constructor - it creates a new quote request
+    public QuoteRequest(Jet jet, String tripType, int flightDuration) {
+        this.jet = jet;
+        this.tripType = tripType;
+        this.flightDuration = flightDuration;
+    }
+
+    // These "getter" methods allow the pricing engine to read the request
+    public Jet getJet() {
+        return jet;
+    }
+
+    public String getTripType() {
+        return tripType;
+    }
+
+    public int getFlightDuration() {
+        return flightDuration;
+    }
+}
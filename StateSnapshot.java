@@ -0,0 +1,349 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// This class saves the whole state of the app (jets, users and bookings) to one binary file,
+// and loads it back at startup much faster than re-reading the CSV files line by line.
+//
+// File layout: a magic number and a format version, then a list of sections. Each section is
+//   [int section id][int length in bytes][int CRC32 of the bytes][bytes]
+// The STRINGS section comes first and holds every distinct text value once; the other sections
+// refer to a text by its number in that table (-1 for no text). Sections with an unknown id are
+// skipped, so a newer file with extra sections can still be read.
+//
+// The file is written to a temp file and then renamed over the old one, so a crash while saving
+// never leaves a half-written snapshot behind. It is loaded through a memory-mapped buffer.
+class StateSnapshot {
+    private static final int MAGIC = 0x504A5353;  // "PJSS"
+    private static final int VERSION = 1;
+
+    private static final int STRINGS = 1;
+    private static final int JETS = 2;
+    private static final int USERS = 3;
+    private static final int BOOKINGS = 4;
+    private static final int JET_TYPES = 5;  // Optional: snapshots written before it existed have none
+
+    // Every method is static, so this class is never created
+    private StateSnapshot() {
+    }
+
+    // This saves everything to the given file, replacing the old snapshot in one step
+    public static void save(String filename, JetInventory jetInventory, UserManager userManager,
+                            BookingManager bookingManager) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+
+        // Jets: next jet ID, count, then per jet: id, model, type, capacity, available, rate
+        ByteArrayOutputStream jetBytes = new ByteArrayOutputStream();
+        DataOutputStream jets = new DataOutputStream(jetBytes);
+        List<Jet> allJets = jetInventory.getAllJets();
+        jets.writeInt(jetInventory.getNextJetId());
+        jets.writeInt(allJets.size());
+        for (Jet jet : allJets) {
+            jets.writeInt(jet.getId());
+            jets.writeInt(stringNumber(strings, jet.getModel()));
+            jets.writeInt(stringNumber(strings, jet.getType()));
+            jets.writeInt(jet.getSeatCapacity());
+            jets.writeBoolean(jet.isAvailable());
+            jets.writeDouble(jet.getHourlyRate());
+        }
+
+        // Jet types: count, then per type with a known cruise speed: name, speed in knots
+        ByteArrayOutputStream typeBytes = new ByteArrayOutputStream();
+        DataOutputStream types = new DataOutputStream(typeBytes);
+        List<String> knownTypes = new ArrayList<>();
+        for (String type : jetInventory.getJetTypes()) {
+            if (jetInventory.getCruiseKnots(type) > 0) {
+                knownTypes.add(type);
+            }
+        }
+        types.writeInt(knownTypes.size());
+        for (String type : knownTypes) {
+            types.writeInt(stringNumber(strings, type));
+            types.writeDouble(jetInventory.getCruiseKnots(type));
+        }
+
+        // Users: count, then per user: username, email, phone and past trips
+        // (none when the users are kept in a UserStore, which is already on disk)
+        ByteArrayOutputStream userBytes = new ByteArrayOutputStream();
+        DataOutputStream users = new DataOutputStream(userBytes);
+        List<User> allUsers = userManager.isDiskBacked() ? Collections.emptyList() : userManager.getAllUsers();
+        users.writeInt(allUsers.size());
+        for (User user : allUsers) {
+            users.writeInt(stringNumber(strings, user.getUsername()));
+            users.writeInt(stringNumber(strings, user.getEmail()));
+            users.writeInt(stringNumber(strings, user.getPhoneNumber()));
+            List<String> pastTrips = user.getPastTrips();
+            users.writeInt(pastTrips.size());
+            for (String trip : pastTrips) {
+                users.writeInt(stringNumber(strings, trip));
+            }
+        }
+
+        // Bookings: next booking ID, count, then per booking all of its fields
+        ByteArrayOutputStream bookingBytes = new ByteArrayOutputStream();
+        DataOutputStream bookings = new DataOutputStream(bookingBytes);
+        List<Booking> allBookings = bookingManager.getAllBookings();
+        bookings.writeLong(bookingManager.getNextBookingId());
+        bookings.writeInt(allBookings.size());
+        for (Booking booking : allBookings) {
+            bookings.writeLong(booking.getId());
+            bookings.writeInt(booking.getJet().getId());
+            bookings.writeInt(stringNumber(strings, booking.getUser().getUsername()));
+            bookings.writeInt(stringNumber(strings, booking.getDeparture()));
+            bookings.writeInt(stringNumber(strings, booking.getDestination()));
+            bookings.writeInt(stringNumber(strings, booking.getTripType()));
+            bookings.writeInt(stringNumber(strings, booking.getBookingDate()));
+            bookings.writeInt(stringNumber(strings, booking.getFlightDate()));
+            bookings.writeInt(booking.getFlightDuration());
+            bookings.writeDouble(booking.getChange());
+            bookings.writeDouble(booking.getTotalCost());
+        }
+
+        // Strings: count, then per string its UTF-8 length and bytes
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(stringBytes);
+        table.writeInt(strings.size());
+        for (String text : strings.keySet()) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            table.writeInt(utf8.length);
+            table.write(utf8);
+        }
+
+        Path target = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeSection(out, STRINGS, stringBytes);
+            writeSection(out, JETS, jetBytes);
+            writeSection(out, JET_TYPES, typeBytes);
+            writeSection(out, USERS, userBytes);
+            writeSection(out, BOOKINGS, bookingBytes);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // This loads a snapshot into empty managers. It returns false if there is no snapshot file,
+    // and throws if the file is damaged; in both cases nothing has been loaded.
+    public static boolean load(String filename, JetInventory jetInventory, UserManager userManager,
+                               BookingManager bookingManager) throws IOException {
+        Path path = Paths.get(filename);
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+
+        // Check every section before loading anything, so a damaged file changes nothing
+        Map<Integer, ByteBuffer> sections = new HashMap<>();
+        CRC32 crc = new CRC32();
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < 12) {
+                throw new IOException("Snapshot file is cut off");
+            }
+            int id = buffer.getInt();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Snapshot file is cut off");
+            }
+            ByteBuffer section = buffer.slice();
+            section.limit(length);
+            buffer.position(buffer.position() + length);
+
+            crc.reset();
+            crc.update(section.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot section " + id + " is damaged");
+            }
+            sections.put(id, section);
+        }
+        for (int required : new int[] {STRINGS, JETS, USERS, BOOKINGS}) {
+            if (!sections.containsKey(required)) {
+                throw new IOException("Snapshot is missing section " + required);
+            }
+        }
+
+        // Decode every section before adding anything, so a file that is wrong inside
+        // (e.g. a text number out of range, or two jets with one ID) also changes nothing
+        String[] strings;
+        Map<String, Double> cruiseKnots = new LinkedHashMap<>();
+        List<Jet> jets = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        List<BookingRecord> bookings = new ArrayList<>();
+        int nextJetId;
+        long nextBookingId;
+        try {
+            strings = readStrings(sections.get(STRINGS));
+
+            ByteBuffer typeSection = sections.get(JET_TYPES);
+            if (typeSection != null) {
+                int typeCount = typeSection.getInt();
+                for (int i = 0; i < typeCount; i++) {
+                    cruiseKnots.put(text(strings, typeSection.getInt()), typeSection.getDouble());
+                }
+            }
+
+            ByteBuffer jetSection = sections.get(JETS);
+            nextJetId = jetSection.getInt();
+            int jetCount = jetSection.getInt();
+            Set<Integer> jetIds = new HashSet<>();
+            for (int i = 0; i < jetCount; i++) {
+                int id = jetSection.getInt();
+                Jet jet = new Jet(text(strings, jetSection.getInt()), text(strings, jetSection.getInt()),
+                        jetSection.getInt(), jetSection.get() != 0, jetSection.getDouble());
+                if (!jetIds.add(id)) {
+                    throw new IllegalArgumentException("Jet ID " + id + " is used twice");
+                }
+                jet.setId(id);
+                jets.add(jet);
+            }
+
+            ByteBuffer userSection = sections.get(USERS);
+            int userCount = userSection.getInt();
+            for (int i = 0; i < userCount; i++) {
+                User user = new User(text(strings, userSection.getInt()), text(strings, userSection.getInt()),
+                        text(strings, userSection.getInt()));
+                int tripCount = userSection.getInt();
+                for (int t = 0; t < tripCount; t++) {
+                    user.addPastTrip(text(strings, userSection.getInt()));
+                }
+                users.add(user);
+            }
+
+            ByteBuffer bookingSection = sections.get(BOOKINGS);
+            nextBookingId = bookingSection.getLong();
+            int bookingCount = bookingSection.getInt();
+            for (int i = 0; i < bookingCount; i++) {
+                bookings.add(new BookingRecord(bookingSection, strings));
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                 | IllegalArgumentException e) {
+            throw new IOException("Snapshot file is damaged: " + e, e);
+        }
+
+        cruiseKnots.forEach(jetInventory::setCruiseKnots);
+        for (Jet jet : jets) {
+            jetInventory.addJet(jet);
+        }
+        jetInventory.skipJetId(nextJetId - 1);
+
+        for (User user : users) {
+            userManager.addUser(user);
+        }
+
+        int restored = 0;
+        for (BookingRecord record : bookings) {
+            Jet jet = jetInventory.getJetById(record.jetId);
+            User user = userManager.findUserByUsername(record.username);
+            if (jet == null || user == null) {
+                continue; // Cannot happen in a snapshot written by save()
+            }
+            Booking booking = new Booking(user, jet, record.departure, record.destination,
+                    record.tripType, record.bookingDate, record.flightDate, record.flightDuration, record.change);
+            booking.setTotalCost(record.totalCost);
+            if (bookingManager.restoreBooking(booking, record.id)) {
+                restored++;
+            }
+        }
+        bookingManager.skipBookingId(nextBookingId - 1);
+
+        System.out.println("Snapshot loaded. Jets: " + jets.size() + ", users: " + userManager.getUserCount()
+                + ", bookings: " + restored);
+        return true;
+    }
+
+    // Helper method that gives a text its number in the string table, adding it the first time it is seen
+    private static int stringNumber(Map<String, Integer> strings, String text) {
+        if (text == null) {
+            return -1;
+        }
+        Integer number = strings.get(text);
+        if (number == null) {
+            number = strings.size();
+            strings.put(text, number);
+        }
+        return number;
+    }
+
+    // Helper method that writes one section with its id, length and checksum
+    private static void writeSection(DataOutputStream out, int id, ByteArrayOutputStream bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] data = bytes.toByteArray();
+        crc.update(data, 0, data.length);
+        out.writeInt(id);
+        out.writeInt(data.length);
+        out.writeInt((int) crc.getValue());
+        out.write(data);
+    }
+
+    // Helper method that decodes the string table, reusing one scratch array for the bytes
+    private static String[] readStrings(ByteBuffer section) {
+        String[] strings = new String[section.getInt()];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = section.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            section.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    // Helper method that looks up a text by its number (-1 means no text)
+    private static String text(String[] strings, int number) {
+        return number < 0 ? null : strings[number];
+    }
+
+    // One booking as it is stored in the BOOKINGS section, read before anything is loaded
+    private static class BookingRecord {
+        private final long id;
+        private final int jetId;
+        private final String username;
+        private final String departure;
+        private final String destination;
+        private final String tripType;
+        private final String bookingDate;
+        private final String flightDate;
+        private final int flightDuration;
+        private final double change;
+        private final double totalCost;
+
+        // This is a constructor - it reads the next booking from the section
+        private BookingRecord(ByteBuffer section, String[] strings) {
+            this.id = section.getLong();
+            this.jetId = section.getInt();
+            this.username = text(strings, section.getInt());
+            this.departure = text(strings, section.getInt());
+            this.destination = text(strings, section.getInt());
+            this.tripType = text(strings, section.getInt());
+            this.bookingDate = text(strings, section.getInt());
+            this.flightDate = text(strings, section.getInt());
+            this.flightDuration = section.getInt();
+            this.change = section.getDouble();
+            this.totalCost = section.getDouble();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+// This class is one trip a broker needs a jet for, without a jet picked yet.
+// FleetAssignmentOptimizer chooses the jet for a whole batch of these at once.
+class TripRequest {
+    private User user;             // Which customer the trip is for
+    private String departure;      // Where the flight will take off from
+    private String destination;    // Where the flight will land
+    private String tripType;       // Whether it's one-way or round-trip
+    private String flightDate;     // When the flight will happen (YYYY-MM-DD)
+    private int flightDuration;    // How long the flight will last (in hours)
+    private int passengers;        // How many seats are needed
+    private double budget;         // The most the customer will pay
+
+    // This is a constructor - it creates a new trip request
+    public TripRequest(User user, String departure, String destination, String tripType,
+                       String flightDate, int flightDuration, int passengers, double budget) {
+        this.user = user;
+        this.departure = departure;
+        this.destination = destination;
+        this.tripType = tripType;
+        this.flightDate = flightDate;
+        this.flightDuration = flightDuration;
+        this.passengers = passengers;
+        this.budget = budget;
+    }
+
+    // These "getter" methods allow the optimizer to read the request
+    public User getUser() {
+        return user;
+    }
+
+    public String getDeparture() {
+        return departure;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getTripType() {
+        return tripType;
+    }
+
+    public String getFlightDate() {
+        return flightDate;
+    }
+
+    public int getFlightDuration() {
+        return flightDuration;
+    }
+
+    public int getPassengers() {
+        return passengers;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+}
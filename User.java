@@ -1,12 +1,18 @@
 import java.util.*;
 
 class User {
+    // Loyalty tiers, from how many trips the user has booked or taken with us
+    private static final String[] LOYALTY_TIER_NAMES = {"Standard", "Silver", "Gold"};
+    private static final int[] LOYALTY_TIER_TRIPS = {0, 3, 10};  // Trips needed for each tier
+
     // These variables store information about each user
     private String username;       // The user's login name
     private String email;          // The user's email address for notifications
     private String phoneNumber;    // The user's contact number
     private List<String> pastTrips; // A record of trips this user has taken before
-    private List<Booking> bookings; // A list of current jet bookings
+    private Map<Long, Booking> bookings; // The user's current jet bookings by booking ID, in booking order
+    private List<String> notifications;  // Messages waiting to be shown the next time the user looks
+    private UserManager manager;         // The manager indexing this user by username and email (null if none)
 
     // This is a constructor - it creates a new User with their basic information
     public User(String username, String email, String phoneNumber) {
@@ -15,7 +21,8 @@ class User {
         this.phoneNumber = phoneNumber;
         // Create empty lists to store the user's trips and bookings
         this.pastTrips = new ArrayList<>();
-        this.bookings = new ArrayList<>();
+        this.bookings = new LinkedHashMap<>();
+        this.notifications = new ArrayList<>();
     }
 
     // These "getter" methods allow other parts of the program to access the user's information
@@ -31,40 +38,130 @@ class User {
         return phoneNumber;
     }
 
+    // The trips can only be read here; addPastTrip adds one, so the change is saved too
     public List<String> getPastTrips() {
-        return pastTrips;
+        return Collections.unmodifiableList(pastTrips);
     }
 
     // These "setter" methods allow other parts of the program to change the user's information
+    // A new username or email is moved in the manager's indexes, and refused if someone else has it
     public void setUsername(String username) {
+        beforeChange();
+        String oldUsername = this.username;
         this.username = username;
+        try {
+            afterChange();
+        } catch (IllegalArgumentException e) {
+            this.username = oldUsername;
+            afterChange();
+            throw e;
+        }
     }
     public void setEmail(String email) {
+        beforeChange();
+        String oldEmail = this.email;
         this.email = email;
+        try {
+            afterChange();
+        } catch (IllegalArgumentException e) {
+            this.email = oldEmail;
+            afterChange();
+            throw e;
+        }
     }
     public void setPhoneNumber(String phoneNumber) {
+        String oldPhoneNumber = this.phoneNumber;
         this.phoneNumber = phoneNumber;
+        try {
+            notifyChanged();
+        } catch (IllegalArgumentException e) {
+            this.phoneNumber = oldPhoneNumber;
+            throw e;
+        }
     }
 
 
     // This adds a completed trip to the user's history
     public void addPastTrip(String trip) {
         this.pastTrips.add(trip);
+        try {
+            notifyChanged();
+        } catch (IllegalArgumentException e) {
+            this.pastTrips.remove(pastTrips.size() - 1);
+            throw e;
+        }
     }
 
     // This adds a new booking to the user's current bookings
-    public void addBooking(Booking booking) {
-        this.bookings.add(booking);
+    public synchronized void addBooking(Booking booking) {
+        this.bookings.put(booking.getId(), booking);
     }
 
     // This gets all the user's current bookings
-    public List<Booking> getBookings() {
-        return bookings;
+    public synchronized List<Booking> getBookings() {
+        return new ArrayList<>(bookings.values());
+    }
+
+    // This cancels a booking by removing it from the user's bookings in O(1)
+    public synchronized boolean cancelBooking(Booking booking) {
+        return this.bookings.remove(booking.getId(), booking);
+    }
+
+    // This returns the user's loyalty tier: 0 = Standard, 1 = Silver, 2 = Gold
+    public synchronized int getLoyaltyTier() {
+        int trips = pastTrips.size() + bookings.size();
+        int tier = 0;
+        while (tier + 1 < LOYALTY_TIER_TRIPS.length && trips >= LOYALTY_TIER_TRIPS[tier + 1]) {
+            tier++;
+        }
+        return tier;
+    }
+
+    public String getLoyaltyTierName() {
+        return LOYALTY_TIER_NAMES[getLoyaltyTier()];
+    }
+
+    // This leaves a message for the user, e.g. when a waitlisted booking goes through
+    public synchronized void addNotification(String message) {
+        notifications.add(message);
+    }
+
+    // This returns the messages waiting for the user and clears them, so each is shown once
+    public synchronized List<String> takeNotifications() {
+        List<String> messages = new ArrayList<>(notifications);
+        notifications.clear();
+        return messages;
+    }
+
+    // These are used by UserManager to tell the user which manager indexes it
+    UserManager getManager() {
+        return manager;
+    }
+
+    void setManager(UserManager manager) {
+        this.manager = manager;
+    }
+
+    // Takes the user out of the manager's indexes before its username or email changes
+    private void beforeChange() {
+        if (manager != null) {
+            manager.unindexUser(this);
+        }
+    }
+
+    // Tells the manager about a change that does not affect its indexes, so it gets saved.
+    // The manager throws if it cannot save the user any more.
+    private void notifyChanged() {
+        if (manager != null) {
+            manager.userChanged(this);
+        }
     }
 
-    // This cancels a booking by removing it from the list
-    public boolean cancelBooking(Booking booking) {
-        return this.bookings.remove(booking);
+    // Puts the user back into the manager's indexes after the change
+    private void afterChange() {
+        if (manager != null) {
+            manager.indexUser(this);
+        }
     }
 
     // This displays the user's profile information
@@ -75,5 +172,6 @@ class User {
         UserInterface.printInfo("Phone: " + phoneNumber);
         UserInterface.printInfo("Past Trips: " + pastTrips.size());
         UserInterface.printInfo("Current Bookings: " + bookings.size());
+        UserInterface.printInfo("Loyalty Tier: " + getLoyaltyTierName());
     }
 }
@@ -0,0 +1,161 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// This class is an append-only file of user changes that have not been merged into the UserStore yet.
+// Changed users are written here in small batches, so a crash loses at most the last batch,
+// and saving costs as much as what changed instead of a rewrite of every user.
+//
+// File layout: a 4-byte magic number, then one record after another. Each record is
+//   [int payload length][int CRC32 of the payload][payload]
+// and the payload is PUT with the normalized username and the whole user record, or DELETE with the username.
+// Like the booking journal, replay stops at the first torn or damaged record and cuts the file back there.
+class UserChangeLog implements Closeable {
+    private static final int MAGIC = 0x504A554C;       // "PJUL"
+    private static final int HEADER_BYTES = 8;         // Length and CRC in front of every record
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private FileChannel channel;
+
+    // This is a constructor - it wraps an open change log file
+    private UserChangeLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // This opens the change log, creating it if it does not exist yet
+    public static UserChangeLog open(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                writeMagic(channel);
+            }
+            return new UserChangeLog(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // This reads every good record and returns the last change of each user, by normalized username
+    // (null for a deleted user), then cuts off a damaged tail
+    public synchronized Map<String, User> replay() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("User change log is too large to replay");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the whole file is in the buffer
+        }
+        buffer.flip();
+
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a user change log file");
+        }
+
+        Map<String, User> changes = new LinkedHashMap<>();
+        int goodEnd = buffer.position();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                break; // Torn or damaged record
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte kind = in.readByte();
+            String usernameKey = in.readUTF();
+            if (kind == PUT) {
+                byte[] record = new byte[in.available()];
+                in.readFully(record);
+                changes.put(usernameKey, UserStore.decode(record));
+            } else {
+                changes.put(usernameKey, null);
+            }
+            goodEnd = buffer.position();
+        }
+
+        if (goodEnd < size) {
+            System.out.println("User change log: ignored " + (size - goodEnd) + " damaged bytes at the end of the file.");
+            channel.truncate(goodEnd);
+            channel.force(true);
+        }
+        channel.position(goodEnd);
+        return changes;
+    }
+
+    // This turns a batch of changes (null for a deleted user) into records for append
+    public static byte[] encode(Map<String, User> changes) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, User> change : changes.entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream payload = new DataOutputStream(bytes);
+            payload.writeByte(change.getValue() != null ? PUT : DELETE);
+            payload.writeUTF(change.getKey());
+            if (change.getValue() != null) {
+                payload.write(UserStore.encode(change.getValue()));
+            }
+            crc.reset();
+            crc.update(bytes.toByteArray());
+            out.writeInt(bytes.size());
+            out.writeInt((int) crc.getValue());
+            bytes.writeTo(out);
+        }
+        return records.toByteArray();
+    }
+
+    // This writes encoded records to the end of the log and waits until they are on disk
+    public synchronized void append(byte[] records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+    }
+
+    // This tells how many bytes of changes the log holds
+    public synchronized long size() throws IOException {
+        return channel.size() - 4;
+    }
+
+    // This empties the log, once every change in it has been merged into the store
+    public synchronized void reset() throws IOException {
+        channel.truncate(4);
+        channel.force(true);
+    }
+
+    // This closes the log file
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Helper method that starts a new, empty log file
+    private static void writeMagic(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4).putInt(MAGIC);
+        magic.flip();
+        while (magic.hasRemaining()) {
+            channel.write(magic);
+        }
+        channel.force(true);
+    }
+}
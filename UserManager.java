@@ -1,83 +1,472 @@
 import java.io.*;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 // This class manages all users registered in the application
+// Users are kept in hash maps keyed by their normalized (trimmed, lower-case) username and email,
+// so "Alice" and "alice " are the same account, and lookups and uniqueness checks are O(1).
+// With a UserStore, every user lives on disk instead, and only the recently used ones stay in memory.
+// Changes are then saved in the background: changed users are marked dirty, written to the store's
+// change log every SAVE_INTERVAL_MS, and merged into the store once enough of them have piled up.
 class UserManager {
-    // A list that holds all registered users
-    private List<User> users;
+    private static final long SAVE_INTERVAL_MS = 1000;
+    // Merging copies the whole store, so it waits until the changed users are a quarter of the store,
+    // or the change log is a quarter of its size; the changed users are kept in memory until then,
+    // which is why there is also a maximum. Adding or removing users merges right away once it is
+    // reached, instead of waiting for the background saver, so a bulk import cannot outrun it.
+    private static final int MIN_USERS_BEFORE_COMPACTION = 10000;
+    private static final int MAX_USERS_BEFORE_COMPACTION = 100000;
+    private static final long MIN_LOG_BYTES_BEFORE_COMPACTION = 16L << 20;
 
-    // This is a constructor - it creates a new empty user manager
+    // All registered users by normalized username, in the order they signed up.
+    // With a store, this is only a cache of the most recently used users.
+    private Map<String, User> users;
+    // The same users by normalized email (not used with a store, which has its own email index)
+    private Map<String, User> usersByEmail;
+
+    // These are only used when the users are kept on disk
+    private UserStore store;
+    // Every user object that is still in memory somewhere (for example held by a booking),
+    // so loading the same username again gives back that object instead of a copy
+    private Map<String, UserReference> liveUsers;
+    private ReferenceQueue<User> collectedUsers;
+    // Changes not merged into the store yet, by normalized username (null for a removed user);
+    // they take precedence over what the store says until the next compaction
+    private Map<String, User> pendingUsers;
+    // The same for emails: normalized email -> normalized username now registered with it (null if none)
+    private Map<String, String> pendingEmails;
+    private Set<String> dirtyUsernames;       // Pending changes that are not in the change log yet
+    private int pendingCountChange;           // Users added minus users removed since the last compaction
+    private ScheduledExecutorService saver;   // Saves the changes in the background
+    private final Object saveLock = new Object(); // Only one save or compaction runs at a time
+
+    // This is a constructor - it creates a new empty user manager that keeps every user in memory
     public UserManager() {
-        this.users = new ArrayList<>();
+        this.users = new LinkedHashMap<>();
+        this.usersByEmail = new HashMap<>();
+    }
+
+    // This is a constructor - it creates a user manager that keeps its users in the given store
+    // and caches at most cacheSize of them, dropping the least recently used one first
+    public UserManager(UserStore store, int cacheSize) {
+        this.users = new LinkedHashMap<String, User>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.store = store;
+        this.liveUsers = new HashMap<>();
+        this.collectedUsers = new ReferenceQueue<>();
+        this.pendingUsers = new LinkedHashMap<>();
+        this.pendingEmails = new HashMap<>();
+        this.dirtyUsernames = new LinkedHashSet<>();
+        this.saver = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "user-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::saveInBackground, SAVE_INTERVAL_MS, SAVE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // This tells whether the users are kept on disk
+    public boolean isDiskBacked() {
+        return store != null;
     }
 
     // This adds a new user to the system
-    public void addUser(User user) {
-        users.add(user);
+    // It returns false (and adds nothing) if the username or email is already taken,
+    // or if the user has too much information for the store
+    public boolean addUser(User user) {
+        synchronized (this) {
+            if (user.getManager() != null || isTaken(user, user.getUsername(), user.getEmail())) {
+                return false;
+            }
+            try {
+                indexUser(user);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            user.setManager(this);
+        }
+        saveIfFull();
+        return true;
+    }
+
+    // This writes the users changed since the last save to the change log, and merges the log
+    // into the store once it has grown. It runs in the background every SAVE_INTERVAL_MS,
+    // so calling it is only needed to be sure the latest changes are on disk.
+    public void saveChanges() throws IOException {
+        saveChanges(false);
+    }
+
+    // This stops the background saving and merges every change into the store,
+    // so the next start has nothing to replay. It does nothing when the users are kept in memory.
+    public void close() throws IOException {
+        if (store != null) {
+            saver.shutdown();
+            saveChanges(true);
+        }
     }
 
     // File Management of Users
+    // Values are quoted where needed (see CsvCodec), so loadUsersFromCSV reads them back unchanged
     public void saveUsersToCSV(String filename) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (User  user : users) {
-                writer.write(user.getUsername() + "," + user.getEmail() + "," + user.getPhoneNumber());
-                writer.newLine();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
+            forEachUser(user -> {
+                try {
+                    CsvCodec.writeRow(writer, user.getUsername(), user.getEmail(), user.getPhoneNumber());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error saving users: " + e.getMessage());
+        }
+    }
+    // Each row is "username,email,phone" (an empty email means none); the rows are parsed in parallel
+    // (see CsvImporter) and the report lists the lines that were skipped
+    public CsvImportReport loadUsersFromCSV(String filename) throws IOException {
+        return CsvImporter.importFile(filename, false, data -> {
+            if (data.getFieldCount() != 3) {
+                throw new IllegalArgumentException("Expected 3 values (username, email, phone) but found "
+                        + data.getFieldCount());
+            }
+            String email = data.getString(1).trim();
+            return new User(data.getString(0).trim(), email.isEmpty() ? null : email, data.getString(2).trim());
+        }, user -> addUser(user) ? null : "Username or email is already registered: " + user.getUsername());
+    }
+
+    // This finds a user by their username, ignoring case and surrounding spaces
+    // A user that is not in memory is read from the store and cached
+    public synchronized User findUserByUsername(String username) {
+        String key = normalize(username);
+        User user = users.get(key);
+        if (user != null || store == null || key == null) {
+            return user;
+        }
+        if (pendingUsers.containsKey(key)) {
+            user = pendingUsers.get(key);  // Changed since the last compaction; the store is out of date
+            if (user == null) {
+                return null;
+            }
+        } else {
+            user = liveUser(key);
+        }
+        if (user == null) {
+            try {
+                user = store.load(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (user == null) {
+                return null;
             }
+            attach(key, user);
+        }
+        users.put(key, user);
+        return user;
+    }
+
+    // This finds a user by their email, ignoring case and surrounding spaces
+    public synchronized User findUserByEmail(String email) {
+        if (store == null) {
+            return usersByEmail.get(normalize(email));
+        }
+        if (email == null) {
+            return null;
+        }
+        String emailKey = normalize(email);
+        String username;
+        try {
+            username = pendingEmails.containsKey(emailKey) ? pendingEmails.get(emailKey) : store.findUsernameByEmail(emailKey);
         } catch (IOException e) {
-            System.out.println("Error saving users: " + e.getMessage());
+            throw new UncheckedIOException(e);
         }
+        User user = username != null ? findUserByUsername(username) : null;
+        // After a crash the store can still list an email its user has changed since; that does not count
+        return user != null && emailKey.equals(normalize(user.getEmail())) ? user : null;
     }
-    public void loadUsersFromCSV(String filename) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 3) {
-                    User user = new User(data[0].trim(), data[1].trim(), data[2].trim());
-                    addUser (user);
+
+    // This removes a user from the system
+    public boolean removeUser(User user) {
+        synchronized (this) {
+            if (user.getManager() != this) {
+                return false;
+            }
+            unindexUser(user);
+            user.setManager(null);
+        }
+        saveIfFull();
+        return true;
+    }
+
+    // This counts how many users are registered
+    public synchronized int getUserCount() {
+        return store != null ? store.size() + pendingCountChange : users.size();
+    }
+
+    // This returns every registered user, in the order they signed up
+    // (with a store, in storage order, and this reads every user into memory)
+    public List<User> getAllUsers() {
+        List<User> allUsers = new ArrayList<>();
+        forEachUser(allUsers::add);
+        return allUsers;
+    }
+
+    // This goes through every registered user one at a time.
+    // With a store, users are read from disk as they are reached instead of all at once.
+    public synchronized void forEachUser(Consumer<User> action) {
+        if (store == null) {
+            users.values().forEach(action);
+            return;
+        }
+        try {
+            store.forEach(stored -> {
+                String key = normalize(stored.getUsername());
+                if (pendingUsers.containsKey(key)) {
+                    return;  // Changed since the last compaction; it comes below
                 }
+                User user = liveUser(key);
+                if (user == null) {
+                    user = stored;
+                    attach(key, user);
+                }
+                action.accept(user);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (User user : new ArrayList<>(pendingUsers.values())) {
+            if (user != null) {
+                action.accept(user);
+            }
+        }
+    }
+
+    // This puts a user into both indexes (also called by the User setters after a change).
+    // It throws if another user already has the username or email, and then changes nothing.
+    // With a store, the user is marked to be saved as well.
+    synchronized void indexUser(User user) {
+        if (isTaken(user, user.getUsername(), user.getEmail())) {
+            throw new IllegalArgumentException("Username or email is already registered");
+        }
+        String key = normalize(user.getUsername());
+        if (store != null) {
+            checkFits(user);
+            markDirty(key, user);
+            if (user.getEmail() != null) {
+                pendingEmails.put(normalize(user.getEmail()), key);
+            }
+            if (liveUser(key) != user) {
+                attach(key, user);
+            }
+            pendingCountChange++;
+        } else if (user.getEmail() != null) {
+            usersByEmail.put(normalize(user.getEmail()), user);
+        }
+        users.put(key, user);
+    }
+
+    // This takes a user out of both indexes (also called by the User setters before a change)
+    // With a store, the removal is marked to be saved as well.
+    synchronized void unindexUser(User user) {
+        String key = normalize(user.getUsername());
+        if (store == null) {
+            users.remove(key, user);
+            if (user.getEmail() != null) {
+                usersByEmail.remove(normalize(user.getEmail()), user);
             }
+            return;
+        }
+        if (findUserByUsername(key) != user) {
+            return;
+        }
+        if (user.getEmail() != null && findUserByEmail(user.getEmail()) == user) {
+            pendingEmails.put(normalize(user.getEmail()), null);
+        }
+        markDirty(key, null);
+        users.remove(key, user);
+        liveUsers.remove(key);
+        pendingCountChange--;
+    }
+
+    // This is called by a user after a change that does not move it in the indexes (like a new phone number),
+    // so that with a store the change is saved too. It throws if the user no longer fits in the store.
+    synchronized void userChanged(User user) {
+        if (store != null) {
+            checkFits(user);
+            markDirty(normalize(user.getUsername()), user);
+        }
+    }
+
+    // Helper method that checks whether a username or email belongs to some other user
+    private boolean isTaken(User user, String username, String email) {
+        User sameName = findUserByUsername(username);
+        User sameEmail = email != null ? findUserByEmail(email) : null;
+        return (sameName != null && sameName != user) || (sameEmail != null && sameEmail != user);
+    }
+
+    // Helper method that records a change to be saved (null for a removed user)
+    private void markDirty(String key, User user) {
+        pendingUsers.put(key, user);
+        dirtyUsernames.add(key);
+    }
+
+    // Helper method that refuses a user the store has no room for
+    private void checkFits(User user) {
+        try {
+            store.checkFits(user);
         } catch (IOException e) {
-            System.out.println("Error loading users: " + e.getMessage());
+            throw new IllegalArgumentException(e.getMessage());
         }
     }
 
-    // This finds a user by their username
-    public User findUserByUsername(String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
+    // Helper method that saves the changes; the change log is written and the store compacted outside
+    // the manager's lock, so users can keep changing (and be looked up) while that is done on disk
+    private void saveChanges(boolean compact) throws IOException {
+        synchronized (saveLock) {
+            Set<String> written;
+            byte[] records;
+            synchronized (this) {
+                if (store == null) {
+                    return;
+                }
+                Map<String, User> changes = new LinkedHashMap<>();
+                for (String key : dirtyUsernames) {
+                    changes.put(key, pendingUsers.get(key));
+                }
+                records = UserChangeLog.encode(changes);
+                written = new HashSet<>(dirtyUsernames);
+                dirtyUsernames.clear();
+            }
+            try {
+                if (!written.isEmpty()) {
+                    store.logChanges(records);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirtyUsernames.addAll(written);  // Try them again next time
+                }
+                throw e;
+            }
+
+            Map<String, User> compactedUsers;
+            Map<String, String> compactedEmails;
+            int compactedCountChange;
+            synchronized (this) {
+                long logBytesBeforeCompaction = Math.max(MIN_LOG_BYTES_BEFORE_COMPACTION, store.getTableBytes() / 4);
+                if (!compact && pendingUsers.size() < usersBeforeCompaction()
+                        && store.getLogSize() < logBytesBeforeCompaction) {
+                    return;
+                }
+                compactedUsers = new LinkedHashMap<>(pendingUsers);
+                compactedEmails = new HashMap<>(pendingEmails);
+                compactedCountChange = pendingCountChange;
+            }
+
+            store.compact(compactedUsers);
+
+            // Only forget the changes that are now in the store. A user changed during the compaction
+            // (even in place) is dirty again, and stays pending until the next one.
+            synchronized (this) {
+                for (Map.Entry<String, User> change : compactedUsers.entrySet()) {
+                    String key = change.getKey();
+                    if (!dirtyUsernames.contains(key) && pendingUsers.get(key) == change.getValue()) {
+                        pendingUsers.remove(key);
+                    }
+                }
+                // An email can only be forgotten once its user is in the store as it is now;
+                // a freed email can always go, since findUserByEmail checks what the store says
+                for (Map.Entry<String, String> change : compactedEmails.entrySet()) {
+                    String emailKey = change.getKey();
+                    String username = change.getValue();
+                    if (pendingEmails.containsKey(emailKey) && Objects.equals(pendingEmails.get(emailKey), username)
+                            && (username == null || !pendingUsers.containsKey(username))) {
+                        pendingEmails.remove(emailKey);
+                    }
+                }
+                pendingCountChange -= compactedCountChange;
             }
         }
-        return null;
     }
 
-    // This finds a user by their email
-    public User findUserByEmail(String email) {
-        for (User user : users) {
-            if (user.getEmail().equals(email)) {
-                return user;
+    // Helper method that returns how many changed users are kept in memory before they are merged
+    private int usersBeforeCompaction() {
+        return Math.max(MIN_USERS_BEFORE_COMPACTION, Math.min(MAX_USERS_BEFORE_COMPACTION, store.size() / 4));
+    }
+
+    // Helper method that saves and merges the changes right away once too many are kept in memory.
+    // It must be called without holding the manager's lock, since a save takes saveLock first.
+    private void saveIfFull() {
+        synchronized (this) {
+            if (store == null || pendingUsers.size() < usersBeforeCompaction()) {
+                return;
             }
         }
-        return null;
+        try {
+            saveChanges(false);
+        } catch (IOException | RuntimeException e) {
+            // The changes stay pending, and the background saver tries again
+            System.out.println("Error saving user changes: " + e.getMessage());
+        }
     }
 
-    // This removes a user from the system
-    public boolean removeUser(User user) {
-        return users.remove(user);
+    // Helper method run by the background saver; there is no caller to report an error to
+    private void saveInBackground() {
+        try {
+            saveChanges(false);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error saving user changes: " + e.getMessage());
+        }
     }
 
-    // This counts how many users are registered
-    public int getUserCount() {
-        return users.size();
+    // Helper method that returns the user object for a username that is still in memory, if any
+    private User liveUser(String key) {
+        purgeCollectedUsers();
+        UserReference reference = liveUsers.get(key);
+        return reference != null ? reference.get() : null;
+    }
+
+    // Helper method that makes a user read from the store belong to this manager
+    private void attach(String key, User user) {
+        user.setManager(this);
+        liveUsers.put(key, new UserReference(key, user, collectedUsers));
+    }
+
+    // Helper method that forgets the users the garbage collector has already thrown away
+    private void purgeCollectedUsers() {
+        UserReference reference;
+        while ((reference = (UserReference) collectedUsers.poll()) != null) {
+            liveUsers.remove(reference.key, reference);
+        }
+    }
+
+    // This turns a username or email into its index key (UserStore uses the same keys)
+    static String normalize(String key) {
+        return key == null ? null : key.trim().toLowerCase(Locale.ROOT);
     }
 
     // This displays all registered users
     public void displayAllUsers() {
         UserInterface.printSubHeader("----- Registered Users -----");
-        for (User user : users) {
-            UserInterface.printInfo("Username: " + user.getUsername() + ", Email: " + user.getEmail());
-        }
+        forEachUser(user -> UserInterface.printInfo("Username: " + user.getUsername() + ", Email: " + user.getEmail()));
         UserInterface.printSubHeader("----------------------------");
     }
+
+    // A weak reference to a user that remembers which username it was registered under
+    private static class UserReference extends WeakReference<User> {
+        private final String key;
+
+        UserReference(String key, User user, ReferenceQueue<User> queue) {
+            super(user, queue);
+            this.key = key;
+        }
+    }
 }
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.*;
 
@@ -61,50 +62,54 @@ public class UserMenuManager {
     public void registerUserMenu() {
         UserInterface.printHeader("User Registration");
 
-        // Get and validate username
-        String username = InputValidator.getStringInput("Enter username (or 'b' to go back): ", false);
-        if (username.equalsIgnoreCase("b")) {
-            UserInterface.printInfo("Returning to the main menu...");
-            return;
-        }
+        // Ask again until the registration succeeds or the user goes back
+        while (true) {
+            // Get and validate username
+            String username = InputValidator.getStringInput("Enter username (or 'b' to go back): ", false);
+            if (username.equalsIgnoreCase("b")) {
+                UserInterface.printInfo("Returning to the main menu...");
+                return;
+            }
 
-        if (username.length() < 4) {
-            UserInterface.printError("Username must be at least 4 characters long. Please try again.");
-            registerUserMenu();
-            return;
-        }
+            if (username.length() < 4) {
+                UserInterface.printError("Username must be at least 4 characters long. Please try again.");
+                continue;
+            }
 
-        if (userManager.findUserByUsername(username) != null) {
-            UserInterface.printError("Username already taken. Please try another.");
-            registerUserMenu();
-            return;
-        }
+            if (userManager.findUserByUsername(username) != null) {
+                UserInterface.printError("Username already taken. Please try another.");
+                continue;
+            }
 
-        // Get and validate email
-        String email = InputValidator.getEmail();
-        if (email.equalsIgnoreCase("b")) {
-            UserInterface.printInfo("Returning to the main menu...");
-            return;
-        }
+            // Get and validate email
+            String email = InputValidator.getEmail();
+            if (email.equalsIgnoreCase("b")) {
+                UserInterface.printInfo("Returning to the main menu...");
+                return;
+            }
 
-        if (userManager.findUserByEmail(email) != null) {
-            UserInterface.printError("Email already registered. Please try another.");
-            registerUserMenu();
-            return;
-        }
+            if (userManager.findUserByEmail(email) != null) {
+                UserInterface.printError("Email already registered. Please try another.");
+                continue;
+            }
 
-        // Get and validate phone number
-        String phoneNumber = InputValidator.getPhoneNumber();
-        if (phoneNumber.equalsIgnoreCase("b")) {
-            UserInterface.printInfo("Returning to the main menu...");
-            return;
-        }
+            // Get and validate phone number
+            String phoneNumber = InputValidator.getPhoneNumber();
+            if (phoneNumber.equalsIgnoreCase("b")) {
+                UserInterface.printInfo("Returning to the main menu...");
+                return;
+            }
 
-        // Create and add the new user
-        User newUser = new User(username, email, phoneNumber);
-        userManager.addUser(newUser);
+            // Create and add the new user
+            User newUser = new User(username, email, phoneNumber);
+            if (!userManager.addUser(newUser)) {
+                UserInterface.printError("Username or email already registered. Please try again.");
+                continue;
+            }
 
-        UserInterface.printSuccess("Registration successful! You can now log in.");
+            UserInterface.printSuccess("Registration successful! You can now log in.");
+            return;
+        }
     }
 
     // Displays the user dashboard with options for the logged-in user
@@ -114,6 +119,9 @@ public class UserMenuManager {
         while (userLoggedIn) {
             UserInterface.printHeader("===== User Dashboard =====");
             UserInterface.printSubHeader("Welcome, " + user.getUsername() + "!");
+            for (String notification : user.takeNotifications()) {
+                UserInterface.printSuccess(notification);
+            }
             UserInterface.printMenuOption(1, "View My Profile");
             UserInterface.printMenuOption(2, "Book a Jet");
             UserInterface.printMenuOption(3, "View My Bookings");
@@ -159,7 +167,8 @@ public class UserMenuManager {
         UserInterface.printSubHeader("\n===== Your Bookings =====");
         for (int i = 0; i < userBookings.size(); i++) {
             Booking booking = userBookings.get(i);
-            UserInterface.printInfo((i + 1) + ". From " + booking.getDeparture() +
+            UserInterface.printInfo((i + 1) + ". " + booking.getConfirmationNumber() +
+                    " - From " + booking.getDeparture() +
                     " to " + booking.getDestination() +
                     " on " + booking.getFlightDate() +
                     " (" + booking.getJet().getModel() + ")");
@@ -196,7 +205,8 @@ public class UserMenuManager {
         UserInterface.printSubHeader("\n===== Cancel Booking =====");
         for (int i = 0; i < userBookings.size(); i++) {
             Booking booking = userBookings.get(i);
-            UserInterface.printInfo((i + 1) + ". From " + booking.getDeparture() +
+            UserInterface.printInfo((i + 1) + ". " + booking.getConfirmationNumber() +
+                    " - From " + booking.getDeparture() +
                     " to " + booking.getDestination() +
                     " on " + booking.getFlightDate() +
                     " (" + booking.getJet().getModel() + ")");
@@ -211,12 +221,16 @@ public class UserMenuManager {
             boolean confirmCancel = InputValidator.getYesNoInput("Are you sure you want to cancel this booking?");
             if (confirmCancel) {
 
-                boolean cancelled = bookingManager.cancelBooking(bookingToCancel);
+                try {
+                    boolean cancelled = bookingManager.cancelBooking(bookingToCancel);
 
-                if (cancelled) {
-                    UserInterface.printSuccess("Booking successfully cancelled.");
-                } else {
-                    UserInterface.printError("Failed to cancel booking. Please try again.");
+                    if (cancelled) {
+                        UserInterface.printSuccess("Booking successfully cancelled.");
+                    } else {
+                        UserInterface.printError("Failed to cancel booking. Please try again.");
+                    }
+                } catch (IOException e) {
+                    UserInterface.printError("Failed to cancel booking. It could not be saved: " + e.getMessage());
                 }
             } else {
                 UserInterface.printError("Cancellation aborted.");
@@ -0,0 +1,258 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+// This class keeps every registered user on disk, so the heap only has to hold the active ones.
+// Users are stored in a memory-mapped hash file keyed by normalized username, and a second one
+// maps normalized email to username. Bloom filters over both keys answer most
+// "is this name taken?" questions without reading the files at all.
+//
+// The two table files are never changed in place. Changed users are appended to a change log
+// (see UserChangeLog), and compact() later applies them to copies of the tables and renames the
+// copies over the old files. After a crash the tables are therefore always a complete earlier version,
+// and the log that was not merged yet is applied when the store is opened again.
+class UserStore implements Closeable {
+    private static final int USER_SLOT_BYTES = 512;
+    private static final int EMAIL_SLOT_BYTES = 256;
+
+    private String filename;
+    private MappedHashFile usersByName;       // Normalized username -> user record
+    private MappedHashFile usernamesByEmail;  // Normalized email -> normalized username
+    private BloomFilter usernameFilter;
+    private BloomFilter emailFilter;
+    private UserChangeLog changeLog;          // Changes not merged into the tables yet
+
+    // This is a constructor - it wraps the open table files and change log
+    private UserStore(String filename, MappedHashFile usersByName, MappedHashFile usernamesByEmail,
+                      UserChangeLog changeLog) {
+        this.filename = filename;
+        this.usersByName = usersByName;
+        this.usernamesByEmail = usernamesByEmail;
+        this.changeLog = changeLog;
+        rebuildFilters();
+    }
+
+    // This opens the store, creating empty files if they do not exist yet.
+    // Changes left in the log by the last run (for example after a crash) are merged into the tables first.
+    public static UserStore open(String filename) throws IOException {
+        List<Closeable> opened = new ArrayList<>();
+        try {
+            MappedHashFile usersByName = MappedHashFile.open(filename, USER_SLOT_BYTES);
+            opened.add(usersByName);
+            MappedHashFile usernamesByEmail = MappedHashFile.open(filename + ".email", EMAIL_SLOT_BYTES);
+            opened.add(usernamesByEmail);
+            UserChangeLog changeLog = UserChangeLog.open(filename + ".log");
+            opened.add(changeLog);
+
+            UserStore store = new UserStore(filename, usersByName, usernamesByEmail, changeLog);
+            opened.clear();
+            opened.add(store);
+            Map<String, User> changes = changeLog.replay();
+            if (!changes.isEmpty()) {
+                store.compact(changes);
+                System.out.println("User change log replayed. Users changed: " + changes.size());
+            }
+            return store;
+        } catch (IOException e) {
+            for (Closeable file : opened) {
+                try {
+                    file.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw e;
+        }
+    }
+
+    // This reads a user from disk, or returns null if there is none with that normalized username
+    public synchronized User load(String usernameKey) throws IOException {
+        if (!usernameFilter.mightContain(usernameKey)) {
+            return null;
+        }
+        byte[] record = usersByName.get(usernameKey);
+        return record != null ? decode(record) : null;
+    }
+
+    // This returns the normalized username registered with a normalized email, or null
+    public synchronized String findUsernameByEmail(String emailKey) throws IOException {
+        if (!emailFilter.mightContain(emailKey)) {
+            return null;
+        }
+        return readUsername(usernamesByEmail.get(emailKey));
+    }
+
+    // This throws if a user is too big to be stored, so such a change can be refused right away
+    // instead of failing later in compact()
+    public synchronized void checkFits(User user) throws IOException {
+        String usernameKey = UserManager.normalize(user.getUsername());
+        String emailKey = UserManager.normalize(user.getEmail());
+        if (!usersByName.fits(usernameKey, encode(user).length)
+                || (emailKey != null && !usernamesByEmail.fits(emailKey, usernameRecord(usernameKey).length))) {
+            throw new IOException("User '" + user.getUsername() + "' has too much information to be stored");
+        }
+    }
+
+    // This writes a batch of encoded changes (see UserChangeLog.encode) to the change log and waits until it is on disk
+    public void logChanges(byte[] records) throws IOException {
+        changeLog.append(records);
+    }
+
+    // This tells how many bytes of changes are waiting in the change log
+    public long getLogSize() throws IOException {
+        return changeLog.size();
+    }
+
+    // This tells how many bytes the two tables take on disk (what compact() has to copy)
+    public synchronized long getTableBytes() throws IOException {
+        return Files.size(Paths.get(filename)) + Files.size(Paths.get(filename + ".email"));
+    }
+
+    // This merges changes (null for a deleted user) into the tables and then empties the change log.
+    // The changes must include everything in the log, and nothing may write to the log meanwhile.
+    // They are applied to copies of both tables, which are renamed over the old ones, so a crash leaves
+    // either the old or the new tables. The old tables are never changed, so lookups keep reading them
+    // while the copies are built; only the renames hold the store's lock.
+    public void compact(Map<String, User> changes) throws IOException {
+        Path users = Paths.get(filename);
+        Path emails = Paths.get(filename + ".email");
+        Path usersCopy = Paths.get(filename + ".compact");
+        Path emailsCopy = Paths.get(filename + ".email.compact");
+        try {
+            Files.copy(users, usersCopy, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(emails, emailsCopy, StandardCopyOption.REPLACE_EXISTING);
+            try (MappedHashFile newUsers = MappedHashFile.open(usersCopy.toString(), USER_SLOT_BYTES);
+                 MappedHashFile newEmails = MappedHashFile.open(emailsCopy.toString(), EMAIL_SLOT_BYTES)) {
+                for (Map.Entry<String, User> change : changes.entrySet()) {
+                    apply(newUsers, newEmails, change.getKey(), change.getValue());
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(usersCopy);
+            Files.deleteIfExists(emailsCopy);
+            throw e;
+        }
+
+        // The email table goes first: if a crash comes between the two renames, the log is still there,
+        // and replaying it over the old user table fixes everything the new email table is missing
+        synchronized (this) {
+            usersByName.close();
+            usernamesByEmail.close();
+            try {
+                Files.move(emailsCopy, emails, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(usersCopy, users, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                usersByName = MappedHashFile.open(filename, USER_SLOT_BYTES);
+                usernamesByEmail = MappedHashFile.open(filename + ".email", EMAIL_SLOT_BYTES);
+                rebuildFilters();
+            }
+        }
+        changeLog.reset();
+    }
+
+    // This counts the stored users
+    public synchronized int size() {
+        return usersByName.size();
+    }
+
+    // This reads every stored user, one at a time
+    public synchronized void forEach(Consumer<User> action) throws IOException {
+        IOException[] failure = new IOException[1];
+        usersByName.forEach((key, record) -> {
+            if (failure[0] == null) {
+                try {
+                    action.accept(decode(record));
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    // This closes the table files and the change log
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            usersByName.close();
+            usernamesByEmail.close();
+        } finally {
+            changeLog.close();
+        }
+    }
+
+    // These turn a user into a record (username, email, phone, then the past trips) and back.
+    // They are also used by UserChangeLog, which stores whole records too.
+    static byte[] encode(User user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(user.getUsername());
+        out.writeUTF(user.getEmail() == null ? "" : user.getEmail());
+        out.writeUTF(user.getPhoneNumber() == null ? "" : user.getPhoneNumber());
+        out.writeInt(user.getPastTrips().size());
+        for (String trip : user.getPastTrips()) {
+            out.writeUTF(trip);
+        }
+        return bytes.toByteArray();
+    }
+
+    static User decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String username = in.readUTF();
+        String email = in.readUTF();
+        User user = new User(username, email.isEmpty() ? null : email, in.readUTF());
+        int tripCount = in.readInt();
+        for (int i = 0; i < tripCount; i++) {
+            user.addPastTrip(in.readUTF());
+        }
+        return user;
+    }
+
+    // Helper method that applies one change to a pair of tables. Applying the same change twice
+    // changes nothing more, so a log that was already partly merged can safely be replayed.
+    private static void apply(MappedHashFile users, MappedHashFile emails, String usernameKey, User user)
+            throws IOException {
+        String emailKey = user != null ? UserManager.normalize(user.getEmail()) : null;
+
+        // Free the email the user had before, unless someone else has registered it since
+        byte[] oldRecord = users.get(usernameKey);
+        if (oldRecord != null) {
+            String oldEmailKey = UserManager.normalize(decode(oldRecord).getEmail());
+            if (oldEmailKey != null && !oldEmailKey.equals(emailKey)
+                    && usernameKey.equals(readUsername(emails.get(oldEmailKey)))) {
+                emails.remove(oldEmailKey);
+            }
+        }
+
+        if (user == null) {
+            users.remove(usernameKey);
+            return;
+        }
+        users.put(usernameKey, encode(user));
+        if (emailKey != null) {
+            emails.put(emailKey, usernameRecord(usernameKey));
+        }
+    }
+
+    // Helper methods that store a username in the email table and read it back
+    private static byte[] usernameRecord(String usernameKey) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(usernameKey);
+        return bytes.toByteArray();
+    }
+
+    private static String readUsername(byte[] record) throws IOException {
+        return record != null ? new DataInputStream(new ByteArrayInputStream(record)).readUTF() : null;
+    }
+
+    // Helper method that sizes the filters for twice the current users and fills them from disk
+    private void rebuildFilters() {
+        usernameFilter = new BloomFilter(usersByName.size() * 2);
+        emailFilter = new BloomFilter(usernamesByEmail.size() * 2);
+        usersByName.forEach((key, record) -> usernameFilter.add(key));
+        usernamesByEmail.forEach((key, username) -> emailFilter.add(key));
+    }
+}
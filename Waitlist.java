@@ -0,0 +1,115 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+// This class keeps the requests waiting for a jet that was already booked. They are grouped by
+// jet and flight date, and within that by how many hours the jet would be busy, with one priority
+// queue per group. Every request in a group has the same window (it starts when the day starts),
+// so either all of them fit or none does: a cancellation only checks the head of each group, and
+// the best fitting entry comes off the top in O(log n), without skipping over ones that do not fit.
+//
+// The waitlist is only kept in memory. It is not in the snapshot or the journal, so requests
+// still waiting when the app stops are dropped, and the users have to join again.
+class Waitlist {
+    // Jet -> flight date -> busy hours -> waiting entries
+    private Map<Jet, Map<LocalDate, TreeMap<Long, PriorityQueue<WaitlistEntry>>>> queues;
+    private long nextSequence;  // Order number for the next entry
+    private int size;           // How many entries are waiting in total
+
+    // This is a constructor - it creates an empty waitlist
+    public Waitlist() {
+        this.queues = new HashMap<>();
+        this.nextSequence = 1;
+        this.size = 0;
+    }
+
+    // This puts a request on the waitlist and returns its entry
+    public synchronized WaitlistEntry add(BookingRequest request, int loyaltyTier) {
+        WaitlistEntry entry = new WaitlistEntry(request, loyaltyTier, nextSequence++);
+        putBack(entry);
+        return entry;
+    }
+
+    // This puts an entry back in its queue, keeping its place in line
+    public synchronized void putBack(WaitlistEntry entry) {
+        BookingRequest request = entry.getRequest();
+        queues.computeIfAbsent(request.getJet(), key -> new HashMap<>())
+                .computeIfAbsent(flightDay(request), key -> new TreeMap<>())
+                .computeIfAbsent(busyHours(request), key -> new PriorityQueue<>())
+                .add(entry);
+        size++;
+    }
+
+    // This takes the best waiting entry for a jet and day whose flight now fits in the jet's calendar,
+    // or returns null if none fits. Entries that still do not fit are not touched.
+    public synchronized WaitlistEntry pollFirstThatFits(Jet jet, LocalDate day) {
+        Map<LocalDate, TreeMap<Long, PriorityQueue<WaitlistEntry>>> jetQueues = queues.get(jet);
+        TreeMap<Long, PriorityQueue<WaitlistEntry>> dayQueues = jetQueues != null ? jetQueues.get(day) : null;
+        if (dayQueues == null) {
+            return null;
+        }
+
+        // If a window fits, every shorter one fits too, so walk from the shortest and stop at the first that does not
+        PriorityQueue<WaitlistEntry> best = null;
+        for (PriorityQueue<WaitlistEntry> queue : dayQueues.values()) {
+            if (!fits(jet, queue.peek().getRequest())) {
+                break;
+            }
+            if (best == null || queue.peek().compareTo(best.peek()) < 0) {
+                best = queue;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        WaitlistEntry found = best.poll();
+        size--;
+        if (best.isEmpty()) {
+            dayQueues.remove(busyHours(found.getRequest()));
+            if (dayQueues.isEmpty()) {
+                jetQueues.remove(day);
+                if (jetQueues.isEmpty()) {
+                    queues.remove(jet);
+                }
+            }
+        }
+        return found;
+    }
+
+    // This counts how many requests are waiting for a jet on a day
+    public synchronized int getWaitingCount(Jet jet, LocalDate day) {
+        Map<LocalDate, TreeMap<Long, PriorityQueue<WaitlistEntry>>> jetQueues = queues.get(jet);
+        TreeMap<Long, PriorityQueue<WaitlistEntry>> dayQueues = jetQueues != null ? jetQueues.get(day) : null;
+        int count = 0;
+        if (dayQueues != null) {
+            for (PriorityQueue<WaitlistEntry> queue : dayQueues.values()) {
+                count += queue.size();
+            }
+        }
+        return count;
+    }
+
+    // This counts how many requests are waiting in total
+    public synchronized int size() {
+        return size;
+    }
+
+    // Helper method that checks whether a request's flight window is free in the jet's calendar
+    private static boolean fits(Jet jet, BookingRequest request) {
+        return jet.getCalendar().isFree(
+                Booking.windowStart(request.getFlightDate()),
+                Booking.windowEnd(request.getFlightDate(), request.getFlightDuration(), request.getTripType()));
+    }
+
+    // Helper method that returns how many hours a request would keep the jet busy
+    private static long busyHours(BookingRequest request) {
+        return Duration.between(Booking.windowStart(request.getFlightDate()),
+                Booking.windowEnd(request.getFlightDate(), request.getFlightDuration(), request.getTripType())).toHours();
+    }
+
+    // Helper method that returns the day a request wants to fly
+    private static LocalDate flightDay(BookingRequest request) {
+        return LocalDate.parse(request.getFlightDate());
+    }
+}
@@ -0,0 +1,36 @@
+// This class is one request waiting for a jet that was already booked.
+// Entries are ordered by loyalty tier (highest first), then by when they joined (earliest first).
+class WaitlistEntry implements Comparable<WaitlistEntry> {
+    private BookingRequest request;  // The booking to make once the jet is free
+    private int loyaltyTier;         // The user's loyalty tier when they joined the waitlist
+    private long sequence;           // Order of joining; lower numbers joined earlier
+
+    // This is a constructor - it creates a new waitlist entry
+    public WaitlistEntry(BookingRequest request, int loyaltyTier, long sequence) {
+        this.request = request;
+        this.loyaltyTier = loyaltyTier;
+        this.sequence = sequence;
+    }
+
+    // These "getter" methods allow other parts of the program to read the entry
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public int getLoyaltyTier() {
+        return loyaltyTier;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    // The entry that should be served first compares as the smallest
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        if (loyaltyTier != other.loyaltyTier) {
+            return Integer.compare(other.loyaltyTier, loyaltyTier);
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+}